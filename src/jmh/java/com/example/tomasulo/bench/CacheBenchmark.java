@@ -0,0 +1,99 @@
+package com.example.tomasulo.bench;
+
+import com.example.tomasulo.components.Cache;
+import com.example.tomasulo.utils.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Cache#load} and {@link Cache#store}, and their allocation-free
+ * {@link Cache#loadLong}/{@link Cache#storeLong} forms, on the default
+ * geometry. Hit patterns sweep addresses that fit in the cache; miss patterns
+ * alternate two addresses that map to the same block, so every access evicts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+    private static final int SIZE = 8;
+
+    private Cache cache;
+    private final byte[] data = new byte[SIZE];
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        cache = new Cache(Constants.DEFAULT_CACHE_SIZE, Constants.DEFAULT_BLOCK_SIZE,
+                Constants.DEFAULT_CACHE_HIT_LATENCY, Constants.DEFAULT_CACHE_MISS_PENALTY);
+        for (int address = 0; address < Constants.DEFAULT_CACHE_SIZE; address += SIZE) {
+            cache.load(address, SIZE);
+        }
+        next = 0;
+    }
+
+    private int nextHitAddress() {
+        next = (next + SIZE) % Constants.DEFAULT_CACHE_SIZE;
+        return next;
+    }
+
+    private int nextMissAddress() {
+        next ^= Constants.DEFAULT_CACHE_SIZE;
+        return next;
+    }
+
+    @Benchmark
+    public Cache.CacheResult loadHit() {
+        return cache.load(nextHitAddress(), SIZE);
+    }
+
+    @Benchmark
+    public Cache.CacheResult loadMiss() {
+        return cache.load(nextMissAddress(), SIZE);
+    }
+
+    @Benchmark
+    public Cache.CacheResult storeHit() {
+        return cache.store(nextHitAddress(), data);
+    }
+
+    @Benchmark
+    public Cache.CacheResult storeMiss() {
+        return cache.store(nextMissAddress(), data);
+    }
+
+    @Benchmark
+    public long loadLongHit() {
+        return cache.loadLong(nextHitAddress(), SIZE);
+    }
+
+    @Benchmark
+    public long loadLongMiss() {
+        return cache.loadLong(nextMissAddress(), SIZE);
+    }
+
+    @Benchmark
+    public int storeLongHit() {
+        cache.storeLong(nextHitAddress(), SIZE, next);
+        return cache.getLastLatency();
+    }
+
+    @Benchmark
+    public int storeLongMiss() {
+        cache.storeLong(nextMissAddress(), SIZE, next);
+        return cache.getLastLatency();
+    }
+}
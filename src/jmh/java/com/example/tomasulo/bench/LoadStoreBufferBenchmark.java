@@ -0,0 +1,72 @@
+package com.example.tomasulo.bench;
+
+import com.example.tomasulo.components.LoadStoreBuffer;
+import com.example.tomasulo.core.Instruction;
+import com.example.tomasulo.utils.InstructionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LoadStoreBuffer#hasAddressClash} for the youngest load in a full
+ * buffer of older stores to distinct addresses: the no-clash case finds no
+ * store in the load's block, the clash case matches the oldest store. Station
+ * lookup and the unresolved-store check are measured on the same buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadStoreBufferBenchmark {
+    @Param({"4", "64", "128"})
+    public int bufferSize;
+
+    private LoadStoreBuffer buffer;
+    private LoadStoreBuffer.LoadStoreEntry load;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        buffer = new LoadStoreBuffer(bufferSize);
+        for (int i = 0; i < bufferSize - 1; i++) {
+            Instruction store = new Instruction(InstructionType.S_D);
+            store.setIssueCycle(i + 1);
+            buffer.addStore(store, 8 * i, "Store" + (i + 1), i);
+        }
+        Instruction inst = new Instruction(InstructionType.L_D);
+        inst.setIssueCycle(bufferSize);
+        load = buffer.addLoad(inst, 8 * bufferSize, "Load1");
+    }
+
+    @Benchmark
+    public boolean noClash() {
+        return buffer.hasAddressClash(8 * bufferSize, 8, load, LoadStoreBuffer.LoadStoreType.LOAD);
+    }
+
+    @Benchmark
+    public boolean clash() {
+        return buffer.hasAddressClash(0, 8, load, LoadStoreBuffer.LoadStoreType.LOAD);
+    }
+
+    @Benchmark
+    public LoadStoreBuffer.LoadStoreEntry entryByStation() {
+        return buffer.getEntryByStation("Load1");
+    }
+
+    @Benchmark
+    public boolean olderUnresolvedStore() {
+        return buffer.hasOlderUnresolvedStore(bufferSize);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.tomasulo.bench;
+
+import com.example.tomasulo.core.Instruction;
+import com.example.tomasulo.core.InstructionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InstructionParser#parseText} on generated programs mixing every
+ * instruction category, with a label and a backward branch every 16 lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"1000", "100000"})
+    public int lines;
+
+    private String text;
+    private InstructionParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i % 16 == 0) {
+                sb.append("L").append(i / 16).append(": ");
+            }
+            int f = random.nextInt(30);
+            int r = 1 + random.nextInt(30);
+            switch (i % 16 == 15 ? 5 : random.nextInt(5)) {
+                case 0:
+                    sb.append("ADD.D F").append(f).append(", F").append(f + 1).append(", F").append(f + 2);
+                    break;
+                case 1:
+                    sb.append("MUL.D F").append(f).append(", F").append(f + 1).append(", F").append(f + 2);
+                    break;
+                case 2:
+                    sb.append("DADDI R").append(r).append(", R").append(r).append(", ").append(8 * random.nextInt(16));
+                    break;
+                case 3:
+                    sb.append("L.D F").append(f).append(", ").append(8 * random.nextInt(16)).append("(R").append(r).append(')');
+                    break;
+                case 4:
+                    sb.append("S.D F").append(f).append(", ").append(8 * random.nextInt(16)).append("(R").append(r).append(')');
+                    break;
+                default:
+                    sb.append("BNE R").append(r).append(", R0, L").append(i / 16);
+                    break;
+            }
+            sb.append('\n');
+        }
+        text = sb.toString();
+        parser = new InstructionParser();
+    }
+
+    @Benchmark
+    public List<Instruction> parseText() {
+        return parser.parseText(text);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.tomasulo.bench;
+
+import com.example.tomasulo.core.Instruction;
+import com.example.tomasulo.core.InstructionParser;
+import com.example.tomasulo.core.TomasuloSimulator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-program simulation of the bundled test cases. The {@code cycles}
+ * counter reports simulated cycles per second alongside programs per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulatorBenchmark {
+    @Param({"test_case_1.txt", "test_case_2.txt", "test_case_3.txt"})
+    public String program;
+
+    private TomasuloSimulator simulator;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Cycles {
+        public long cycles;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            cycles = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String dir = System.getProperty("tomasulo.testCaseDir", ".");
+        List<Instruction> instructions = new InstructionParser().parseFile(Paths.get(dir, program).toString());
+        simulator = new TomasuloSimulator();
+        simulator.loadInstructions(instructions);
+    }
+
+    @Benchmark
+    public int step(Cycles counter) {
+        simulator.reset();
+        while (!simulator.getState().isSimulationComplete()) {
+            simulator.step();
+        }
+        counter.cycles += simulator.getState().getCurrentCycle();
+        return simulator.getState().getCurrentCycle();
+    }
+
+    @Benchmark
+    public int runUntilComplete(Cycles counter) {
+        simulator.reset();
+        simulator.runUntilComplete();
+        counter.cycles += simulator.getState().getCurrentCycle();
+        return simulator.getState().getCurrentCycle();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.tomasulo.cli;
+
+import com.example.tomasulo.components.MappedMemory;
+import com.example.tomasulo.core.Instruction;
+import com.example.tomasulo.core.InstructionParser;
+import com.example.tomasulo.core.TomasuloSimulator;
+import com.example.tomasulo.core.TraceFileWriter;
+import com.example.tomasulo.utils.Constants;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Headless entry point: runs one program to completion without JavaFX and
+ * prints a {@link SimulationReport}.
+ *
+ * <pre>
+ * BatchRunner &lt;program&gt; [--config FILE] [--registers FILE] [--memory FILE]
+ *             [--max-cycles N] [--format text|json] [--trace-file FILE]
+ *             [--memory-image FILE]
+ * </pre>
+ *
+ * Register and memory files use the {@link Preload} formats. With
+ * {@code --trace-file} the timing of every completed instruction is written in
+ * the {@link TraceFileWriter} binary format. With {@code --memory-image} main
+ * memory is a {@link MappedMemory} of the file (created or grown to
+ * {@code memory.size} if needed), so it starts from the image and holds the
+ * final memory afterwards; the report then leaves the memory dump out.
+ *
+ * Exit status: 0 when the program completed, 2 when the cycle budget ran out,
+ * 1 on bad arguments or input.
+ */
+public class BatchRunner {
+    private static final String USAGE =
+            "Usage: BatchRunner <program> [--config FILE] [--registers FILE] [--memory FILE]"
+            + " [--max-cycles N] [--format text|json] [--trace-file FILE] [--memory-image FILE]";
+
+    public static void main(String[] args) {
+        PrintStream out = System.out;
+        // Trace output (-Dtomasulo.trace=true) goes to System.out; keep it off the report stream
+        System.setOut(System.err);
+        try {
+            System.exit(run(args, out));
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    static int run(String[] args, PrintStream out) {
+        String program = null;
+        Path configFile = null;
+        Path registersFile = null;
+        Path memoryFile = null;
+        Path traceFile = null;
+        Path imageFile = null;
+        int maxCycles = Constants.DEFAULT_MAX_CYCLES;
+        boolean json = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--config":
+                        configFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--registers":
+                        registersFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--memory":
+                        memoryFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--trace-file":
+                        traceFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--memory-image":
+                        imageFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--max-cycles":
+                        maxCycles = Integer.parseInt(requireValue(args, ++i, arg));
+                        if (maxCycles <= 0) {
+                            throw new IllegalArgumentException("--max-cycles must be positive");
+                        }
+                        break;
+                    case "--format":
+                        String format = requireValue(args, ++i, arg);
+                        if (!format.equals("text") && !format.equals("json")) {
+                            throw new IllegalArgumentException("Unknown format: " + format);
+                        }
+                        json = format.equals("json");
+                        break;
+                    case "-h":
+                    case "--help":
+                        out.println(USAGE);
+                        return 0;
+                    default:
+                        if (arg.startsWith("--") || program != null) {
+                            throw new IllegalArgumentException("Unexpected argument: " + arg);
+                        }
+                        program = arg;
+                }
+            }
+            if (program == null) {
+                throw new IllegalArgumentException("No program file given");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            return 1;
+        }
+
+        MappedMemory image = null;
+        try {
+            SimulatorConfig config = configFile != null ? SimulatorConfig.load(configFile) : new SimulatorConfig();
+            Preload preload = Preload.load(registersFile, memoryFile);
+            TomasuloSimulator simulator = config.createSimulator();
+            if (imageFile != null) {
+                image = new MappedMemory(imageFile, config.getMemorySize());
+                simulator.getCache().setMainMemory(image);
+            }
+            // The report only needs final state, not the per-event log or old trace entries
+            simulator.getState().getLog().setEnabled(false);
+            simulator.getState().getTrace().setRetention(0);
+
+            List<Instruction> instructions = new InstructionParser().parseFile(program);
+            simulator.loadInstructions(instructions);
+            // loadInstructions() resets the register file, so preload afterwards
+            preload.applyTo(simulator);
+
+            boolean completed;
+            if (traceFile != null) {
+                simulator.getState().getTrace().setRecorder(new TraceFileWriter(traceFile));
+                try {
+                    completed = simulator.runUntilComplete(maxCycles);
+                } finally {
+                    simulator.getState().getTrace().close();
+                }
+            } else {
+                completed = simulator.runUntilComplete(maxCycles);
+            }
+            SimulationReport report;
+            if (image != null) {
+                // The image file is the memory dump
+                simulator.getCache().flush();
+                report = SimulationReport.summarize(program, simulator, completed);
+            } else {
+                report = SimulationReport.capture(program, simulator, completed);
+            }
+            out.print(json ? report.toJson() : report.toText());
+            out.flush();
+            return completed ? 0 : 2;
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            if (image != null) {
+                try {
+                    image.close();
+                } catch (IOException e) {
+                    System.err.println("Error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String requireValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.tomasulo.cli;
+
+import com.example.tomasulo.components.Cache;
+import com.example.tomasulo.components.MainMemory;
+import com.example.tomasulo.components.RegisterFile;
+import com.example.tomasulo.core.TomasuloSimulator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Initial register and memory contents, parsed once and applied to any number
+ * of simulators.
+ *
+ * Register files use the GUI's {@code R1=10} syntax and memory files its
+ * {@code address[:size]=value} syntax (size defaults to 8 bytes), one entry per
+ * line; blank lines and lines starting with {@code #} are ignored.
+ */
+public class Preload {
+    private final List<int[]> memoryCells = new ArrayList<>(); // {address, size}
+    private final List<Double> memoryValues = new ArrayList<>();
+    private final List<Integer> registerIndices = new ArrayList<>();
+    private final List<Double> registerValues = new ArrayList<>();
+
+    /**
+     * @param registersFile register preload, or null
+     * @param memoryFile memory preload, or null
+     * @throws IllegalArgumentException on a malformed line or unknown register
+     */
+    public static Preload load(Path registersFile, Path memoryFile) throws IOException {
+        Preload preload = new Preload();
+        if (registersFile != null) {
+            preload.parseRegisters(registersFile);
+        }
+        if (memoryFile != null) {
+            preload.parseMemory(memoryFile);
+        }
+        return preload;
+    }
+
+    /**
+     * Apply to {@code simulator}. Call after loadInstructions(), which resets the register file.
+     */
+    public void applyTo(TomasuloSimulator simulator) {
+        applyRegistersTo(simulator);
+        writeMemory(simulator.getCache().getMainMemory());
+    }
+
+    /** Apply only the register values, for simulators whose memory already holds this preload. */
+    public void applyRegistersTo(TomasuloSimulator simulator) {
+        for (int i = 0; i < registerIndices.size(); i++) {
+            simulator.getRegisterFile().setValue(registerIndices.get(i), registerValues.get(i));
+        }
+    }
+
+    public boolean hasMemory() {
+        return !memoryCells.isEmpty();
+    }
+
+    /** Write the memory values straight to {@code memory}, bypassing any cache in front of it. */
+    public void writeMemory(MainMemory memory) {
+        for (int i = 0; i < memoryCells.size(); i++) {
+            int[] cell = memoryCells.get(i);
+            Cache.initializeMemory(memory, cell[0], memoryValues.get(i), cell[1]);
+        }
+    }
+
+    private void parseRegisters(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("=");
+            int index = parts.length == 2 ? RegisterFile.indexOf(parts[0]) : RegisterFile.INVALID_INDEX;
+            if (index == RegisterFile.INVALID_INDEX) {
+                throw new IllegalArgumentException(file + ":" + (n + 1) + ": invalid register line: " + line);
+            }
+            try {
+                registerValues.add(Double.parseDouble(parts[1].trim()));
+                registerIndices.add(index);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(file + ":" + (n + 1) + ": invalid value: " + line);
+            }
+        }
+    }
+
+    private void parseMemory(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(file + ":" + (n + 1) + ": invalid memory line: " + line);
+            }
+            try {
+                String addrStr = parts[0].trim();
+                int size = 8;
+                int address;
+                if (addrStr.contains(":")) {
+                    String[] addrParts = addrStr.split(":");
+                    address = Integer.parseInt(addrParts[0].trim());
+                    size = Integer.parseInt(addrParts[1].trim());
+                } else {
+                    address = Integer.parseInt(addrStr);
+                }
+                double value = Double.parseDouble(parts[1].trim());
+                memoryCells.add(new int[] {address, size});
+                memoryValues.add(value);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException(file + ":" + (n + 1) + ": invalid memory line: " + line);
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.tomasulo.cli;
+
+import com.example.tomasulo.components.Cache;
+import com.example.tomasulo.components.MainMemory;
+import com.example.tomasulo.components.RegisterFile;
+import com.example.tomasulo.core.TomasuloSimulator;
+import com.example.tomasulo.utils.StallReason;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Summary of a finished headless run. Registers and memory words that are
+ * zero are left out to keep the output readable.
+ */
+public class SimulationReport {
+    private static final int WORD_SIZE = 8;
+
+    private final String program;
+    private final boolean completed;
+    private final int cycles;
+    private final int instructionsCompleted;
+    private final int cacheHits;
+    private final int cacheMisses;
+    private final int[] lowerLevelHits;   // L2 onward
+    private final int[] lowerLevelMisses;
+    private final long forwardedLoads;
+    private final long speculatedLoads;
+    private final long orderViolations;
+    private final long replayedLoads;
+    private final long[] stallCycles = new long[StallReason.values().length];
+    private final Map<String, Double> registers = new LinkedHashMap<>();
+    private final Map<Integer, Long> memory = new LinkedHashMap<>();
+    private boolean memoryCaptured;
+
+    private SimulationReport(String program, TomasuloSimulator simulator, boolean completed) {
+        this.program = program;
+        this.completed = completed;
+        this.cycles = simulator.getState().getCurrentCycle();
+
+        this.instructionsCompleted = simulator.getState().getTrace().countCompleted();
+
+        Cache cache = simulator.getCache();
+        this.cacheHits = cache.getHits();
+        this.cacheMisses = cache.getMisses();
+        int levels = 0;
+        for (Cache level = cache.getNextLevel(); level != null; level = level.getNextLevel()) {
+            levels++;
+        }
+        this.lowerLevelHits = new int[levels];
+        this.lowerLevelMisses = new int[levels];
+        Cache level = cache.getNextLevel();
+        for (int i = 0; i < levels; i++, level = level.getNextLevel()) {
+            lowerLevelHits[i] = level.getHits();
+            lowerLevelMisses[i] = level.getMisses();
+        }
+        this.forwardedLoads = simulator.getForwardedLoads();
+        this.speculatedLoads = simulator.getSpeculatedLoads();
+        this.orderViolations = simulator.getOrderViolations();
+        this.replayedLoads = simulator.getReplayedLoads();
+        for (StallReason reason : StallReason.values()) {
+            stallCycles[reason.ordinal()] = simulator.getStallCycles(reason);
+        }
+
+        RegisterFile registerFile = simulator.getRegisterFile();
+        for (int i = 0; i < RegisterFile.NUM_REGISTERS; i++) {
+            double value = registerFile.getValue(i);
+            if (value != 0.0) {
+                registers.put(RegisterFile.nameOf(i), value);
+            }
+        }
+    }
+
+    /**
+     * Capture the final state of {@code simulator}. Dirty cache blocks are
+     * flushed first so the memory image includes every completed store.
+     * Memory that was never written is skipped without reading it.
+     */
+    public static SimulationReport capture(String program, TomasuloSimulator simulator, boolean completed) {
+        SimulationReport report = summarize(program, simulator, completed);
+        Cache cache = simulator.getCache();
+        cache.flush();
+        report.memoryCaptured = true;
+        MainMemory memory = cache.getMainMemory();
+        // Addresses are ints, so memory past 2GB is out of the program's reach
+        long end = Math.min(memory.size(), Integer.MAX_VALUE);
+        for (long address = 0; address + WORD_SIZE <= end; address += WORD_SIZE) {
+            long touched = memory.nextTouched(address);
+            if (touched > address) {
+                address = touched - WORD_SIZE; // pages start on word boundaries
+                continue;
+            }
+            byte[] bytes = cache.readMemory((int) address, WORD_SIZE);
+            long value = 0L;
+            for (int i = 0; i < WORD_SIZE; i++) {
+                value |= (long) (bytes[i] & 0xFF) << (8 * i);
+            }
+            if (value != 0L) {
+                report.memory.put((int) address, value);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Like {@link #capture} but without the memory image, for callers that only need the counters.
+     */
+    public static SimulationReport summarize(String program, TomasuloSimulator simulator, boolean completed) {
+        return new SimulationReport(program, simulator, completed);
+    }
+
+    public String getProgram() {
+        return program;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    public int getInstructionsCompleted() {
+        return instructionsCompleted;
+    }
+
+    public double getIpc() {
+        return cycles > 0 ? (double) instructionsCompleted / cycles : 0.0;
+    }
+
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public double getCacheHitRate() {
+        return hitRate(cacheHits, cacheMisses);
+    }
+
+    private static double hitRate(int hits, int misses) {
+        int total = hits + misses;
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+
+    /** Cache levels below L1. */
+    public int getLowerCacheLevels() {
+        return lowerLevelHits.length;
+    }
+
+    /** Hits in cache level {@code level} (2 for L2, ...), counting accesses that missed the level above. */
+    public int getCacheHits(int level) {
+        return level == 1 ? cacheHits : lowerLevelHits[level - 2];
+    }
+
+    public int getCacheMisses(int level) {
+        return level == 1 ? cacheMisses : lowerLevelMisses[level - 2];
+    }
+
+    /** Loads that took their value from an in-flight store instead of the cache. */
+    public long getForwardedLoads() {
+        return forwardedLoads;
+    }
+
+    /** Loads that executed ahead of an older store whose address was unknown. */
+    public long getSpeculatedLoads() {
+        return speculatedLoads;
+    }
+
+    /** Load/store pairs found out of order once the store's address was known. */
+    public long getOrderViolations() {
+        return orderViolations;
+    }
+
+    public long getReplayedLoads() {
+        return replayedLoads;
+    }
+
+    public long getStallCycles(StallReason reason) {
+        return stallCycles[reason.ordinal()];
+    }
+
+    public Map<String, Double> getRegisters() {
+        return registers;
+    }
+
+    /** Non-zero 8-byte aligned memory words, decoded little-endian as the simulator stores them. */
+    public Map<Integer, Long> getMemory() {
+        return memory;
+    }
+
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Program: ").append(program).append('\n');
+        sb.append("Status: ").append(completed ? "completed" : "cycle limit reached").append('\n');
+        sb.append("Cycles: ").append(cycles).append('\n');
+        sb.append("Instructions completed: ").append(instructionsCompleted).append('\n');
+        sb.append(String.format("IPC: %.4f%n", getIpc()));
+        sb.append(String.format("Cache: %d hits, %d misses, hit rate %.2f%%%n",
+                cacheHits, cacheMisses, getCacheHitRate() * 100));
+        for (int i = 0; i < lowerLevelHits.length; i++) {
+            sb.append(String.format("L%d cache: %d hits, %d misses, hit rate %.2f%%%n",
+                    i + 2, lowerLevelHits[i], lowerLevelMisses[i],
+                    hitRate(lowerLevelHits[i], lowerLevelMisses[i]) * 100));
+        }
+        sb.append("Forwarded loads: ").append(forwardedLoads).append('\n');
+        sb.append("Speculative loads: ").append(speculatedLoads)
+                .append(", order violations: ").append(orderViolations)
+                .append(", replays: ").append(replayedLoads).append('\n');
+        sb.append("Stall cycles:");
+        for (StallReason reason : StallReason.values()) {
+            sb.append(' ').append(reason).append('=').append(stallCycles[reason.ordinal()]);
+        }
+        sb.append('\n');
+
+        sb.append("Registers:\n");
+        if (registers.isEmpty()) {
+            sb.append("  (all zero)\n");
+        }
+        for (Map.Entry<String, Double> entry : registers.entrySet()) {
+            sb.append("  ").append(entry.getKey()).append(" = ").append(entry.getValue()).append('\n');
+        }
+
+        sb.append("Memory:\n");
+        if (!memoryCaptured) {
+            sb.append("  (not captured)\n");
+        } else if (memory.isEmpty()) {
+            sb.append("  (all zero)\n");
+        }
+        for (Map.Entry<Integer, Long> entry : memory.entrySet()) {
+            sb.append("  [").append(entry.getKey()).append("] = ").append(entry.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"program\": ").append(jsonString(program)).append(",\n");
+        sb.append("  \"completed\": ").append(completed).append(",\n");
+        sb.append("  \"cycles\": ").append(cycles).append(",\n");
+        sb.append("  \"instructionsCompleted\": ").append(instructionsCompleted).append(",\n");
+        sb.append("  \"ipc\": ").append(jsonNumber(getIpc())).append(",\n");
+        sb.append("  \"cache\": {\"hits\": ").append(cacheHits)
+                .append(", \"misses\": ").append(cacheMisses)
+                .append(", \"hitRate\": ").append(jsonNumber(getCacheHitRate()));
+        if (lowerLevelHits.length > 0) {
+            sb.append(", \"lowerLevels\": [");
+            for (int i = 0; i < lowerLevelHits.length; i++) {
+                sb.append(i > 0 ? ", " : "").append("{\"hits\": ").append(lowerLevelHits[i])
+                        .append(", \"misses\": ").append(lowerLevelMisses[i])
+                        .append(", \"hitRate\": ")
+                        .append(jsonNumber(hitRate(lowerLevelHits[i], lowerLevelMisses[i]))).append('}');
+            }
+            sb.append(']');
+        }
+        sb.append("},\n");
+
+        sb.append("  \"forwardedLoads\": ").append(forwardedLoads).append(",\n");
+        sb.append("  \"speculation\": {\"loads\": ").append(speculatedLoads)
+                .append(", \"violations\": ").append(orderViolations)
+                .append(", \"replays\": ").append(replayedLoads).append("},\n");
+        sb.append("  \"stallCycles\": {");
+        String sep = "";
+        for (StallReason reason : StallReason.values()) {
+            sb.append(sep).append(jsonString(reason.name())).append(": ").append(stallCycles[reason.ordinal()]);
+            sep = ", ";
+        }
+        sb.append("},\n");
+
+        sb.append("  \"registers\": {");
+        sep = "";
+        for (Map.Entry<String, Double> entry : registers.entrySet()) {
+            sb.append(sep).append(jsonString(entry.getKey())).append(": ").append(jsonNumber(entry.getValue()));
+            sep = ", ";
+        }
+        sb.append("},\n");
+
+        sb.append("  \"memory\": {");
+        sep = "";
+        for (Map.Entry<Integer, Long> entry : memory.entrySet()) {
+            sb.append(sep).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            sep = ", ";
+        }
+        sb.append("}\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    static String jsonNumber(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "null";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,403 @@
+package com.example.tomasulo.cli;
+
+import com.example.tomasulo.components.Cache;
+import com.example.tomasulo.components.MainMemory;
+import com.example.tomasulo.components.ReplacementPolicy;
+import com.example.tomasulo.components.StoreSetPredictor;
+import com.example.tomasulo.core.TomasuloSimulator;
+import com.example.tomasulo.utils.Constants;
+import com.example.tomasulo.utils.InstructionType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Station, latency and cache settings for a headless run - the same values the
+ * GUI configuration panel applies.
+ *
+ * Config files are Java properties, every key optional:
+ * <pre>
+ * cache.size=1024
+ * cache.blockSize=8
+ * cache.hitLatency=1
+ * cache.missPenalty=10
+ * cache.associativity=1      (0 = fully associative)
+ * cache.policy=LRU           (LRU, PLRU, FIFO or RANDOM)
+ * cache.alignedLines=false   (true: fill whole block-aligned lines)
+ * cache.l2.size=8192         (0 = no L2; likewise cache.l3.*)
+ * cache.l2.blockSize=8       (0 = same as L1)
+ * cache.l2.associativity=4
+ * cache.l2.hitLatency=4
+ * cache.inclusion=INCLUSIVE  (INCLUSIVE or EXCLUSIVE)
+ * memory.size=65536          (bytes; pages are allocated on first write)
+ * memory.backend=HEAP        (HEAP or OFF_HEAP)
+ * forwarding.enabled=false   (true: store-to-load forwarding)
+ * forwarding.latency=1
+ * speculation.enabled=false  (true: loads pass stores with unknown addresses)
+ * speculation.tableSize=1024 (store set table entries, a power of two)
+ * stations.fpAddSub=3
+ * stations.fpMulDiv=2
+ * stations.intAlu=2
+ * stations.load=2
+ * stations.store=2
+ * latency.MUL.D=10
+ * </pre>
+ */
+public class SimulatorConfig {
+    private static final int LOWER_LEVELS = 2; // L2 and L3
+
+    private int cacheSize = Constants.DEFAULT_CACHE_SIZE;
+    private int blockSize = Constants.DEFAULT_BLOCK_SIZE;
+    private int hitLatency = Constants.DEFAULT_CACHE_HIT_LATENCY;
+    private int missPenalty = Constants.DEFAULT_CACHE_MISS_PENALTY;
+    private int associativity = Constants.DEFAULT_CACHE_ASSOCIATIVITY;
+    private ReplacementPolicy.Type replacementPolicy = ReplacementPolicy.Type.LRU;
+    private boolean alignedLines = Constants.DEFAULT_ALIGNED_LINES;
+
+    // Cache levels below L1, indexed from L2; a size of 0 leaves the level out
+    private final int[] levelSize = new int[LOWER_LEVELS];
+    private final int[] levelBlockSize = new int[LOWER_LEVELS]; // 0 = L1 block size
+    private final int[] levelAssociativity = {Constants.DEFAULT_CACHE_ASSOCIATIVITY,
+            Constants.DEFAULT_CACHE_ASSOCIATIVITY};
+    private final int[] levelHitLatency = {Constants.DEFAULT_L2_HIT_LATENCY, Constants.DEFAULT_L3_HIT_LATENCY};
+    private Cache.Inclusion inclusion = Cache.Inclusion.INCLUSIVE;
+
+    private long memorySize = Constants.MEMORY_SIZE;
+    private MainMemory.Backend memoryBackend = MainMemory.Backend.HEAP;
+
+    private boolean storeForwarding = Constants.DEFAULT_STORE_FORWARDING;
+    private int forwardingLatency = Constants.DEFAULT_FORWARDING_LATENCY;
+    private boolean speculativeLoads = Constants.DEFAULT_SPECULATIVE_LOADS;
+    private int storeSetTableSize = Constants.DEFAULT_STORE_SET_TABLE_SIZE;
+
+    private int fpAddSubStations = Constants.DEFAULT_FP_ADD_SUB_STATIONS;
+    private int fpMulDivStations = Constants.DEFAULT_FP_MUL_DIV_STATIONS;
+    private int intAluStations = Constants.DEFAULT_INTEGER_ALU_STATIONS;
+    private int loadStations = Constants.DEFAULT_LOAD_STATIONS;
+    private int storeStations = Constants.DEFAULT_STORE_STATIONS;
+
+    // Overrides only; mnemonics not listed keep InstructionType's default latency
+    private final Map<String, Integer> latencies = new LinkedHashMap<>();
+
+    public SimulatorConfig() {
+    }
+
+    public SimulatorConfig(SimulatorConfig other) {
+        this.cacheSize = other.cacheSize;
+        this.blockSize = other.blockSize;
+        this.hitLatency = other.hitLatency;
+        this.missPenalty = other.missPenalty;
+        this.associativity = other.associativity;
+        this.replacementPolicy = other.replacementPolicy;
+        this.alignedLines = other.alignedLines;
+        System.arraycopy(other.levelSize, 0, levelSize, 0, LOWER_LEVELS);
+        System.arraycopy(other.levelBlockSize, 0, levelBlockSize, 0, LOWER_LEVELS);
+        System.arraycopy(other.levelAssociativity, 0, levelAssociativity, 0, LOWER_LEVELS);
+        System.arraycopy(other.levelHitLatency, 0, levelHitLatency, 0, LOWER_LEVELS);
+        this.inclusion = other.inclusion;
+        this.memorySize = other.memorySize;
+        this.memoryBackend = other.memoryBackend;
+        this.storeForwarding = other.storeForwarding;
+        this.forwardingLatency = other.forwardingLatency;
+        this.speculativeLoads = other.speculativeLoads;
+        this.storeSetTableSize = other.storeSetTableSize;
+        this.fpAddSubStations = other.fpAddSubStations;
+        this.fpMulDivStations = other.fpMulDivStations;
+        this.intAluStations = other.intAluStations;
+        this.loadStations = other.loadStations;
+        this.storeStations = other.storeStations;
+        this.latencies.putAll(other.latencies);
+    }
+
+    public static SimulatorConfig load(Path file) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            props.load(reader);
+        }
+        return fromProperties(props);
+    }
+
+    public static SimulatorConfig fromProperties(Properties props) {
+        SimulatorConfig config = new SimulatorConfig();
+        for (String key : props.stringPropertyNames()) {
+            config.set(key, props.getProperty(key));
+        }
+        return config;
+    }
+
+    /**
+     * Apply a single {@code key=value} setting using the config file key names.
+     *
+     * @throws IllegalArgumentException if the key is unknown or the value is not a non-negative integer
+     *         (or, for {@code cache.policy}, {@code cache.inclusion} and {@code memory.backend}, a
+     *         constant name, for {@code cache.alignedLines}, {@code forwarding.enabled} and
+     *         {@code speculation.enabled}, true or false, for {@code memory.size}, a positive long,
+     *         and for {@code speculation.tableSize}, a power of two)
+     */
+    public void set(String key, String value) {
+        try {
+            if (key.equals("cache.policy")) {
+                replacementPolicy = ReplacementPolicy.Type.valueOf(value.trim().toUpperCase());
+                return;
+            }
+            if (key.equals("cache.inclusion")) {
+                inclusion = Cache.Inclusion.valueOf(value.trim().toUpperCase());
+                return;
+            }
+            if (key.equals("cache.alignedLines")) {
+                alignedLines = parseBoolean(value);
+                return;
+            }
+            if (key.equals("forwarding.enabled")) {
+                storeForwarding = parseBoolean(value);
+                return;
+            }
+            if (key.equals("speculation.enabled")) {
+                speculativeLoads = parseBoolean(value);
+                return;
+            }
+            if (key.equals("memory.backend")) {
+                memoryBackend = MainMemory.Backend.valueOf(value.trim().toUpperCase());
+                return;
+            }
+            if (key.equals("memory.size")) {
+                long size = Long.parseLong(value.trim());
+                if (size <= 0) {
+                    throw new IllegalArgumentException(value);
+                }
+                memorySize = size;
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+        if (parsed < 0) {
+            throw new IllegalArgumentException("Negative value for " + key + ": " + value);
+        }
+
+        if (key.startsWith("latency.")) {
+            setLatency(key.substring("latency.".length()), parsed);
+            return;
+        }
+        if (key.startsWith("cache.l2.") || key.startsWith("cache.l3.")) {
+            setLevel(key.charAt("cache.l".length()) - '2', key, parsed);
+            return;
+        }
+        switch (key) {
+            case "cache.size":
+                cacheSize = parsed;
+                break;
+            case "cache.blockSize":
+                blockSize = parsed;
+                break;
+            case "cache.hitLatency":
+                hitLatency = parsed;
+                break;
+            case "cache.missPenalty":
+                missPenalty = parsed;
+                break;
+            case "cache.associativity":
+                associativity = parsed;
+                break;
+            case "forwarding.latency":
+                forwardingLatency = parsed;
+                break;
+            case "speculation.tableSize":
+                if (Integer.bitCount(parsed) != 1) {
+                    throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+                }
+                storeSetTableSize = parsed;
+                break;
+            case "stations.fpAddSub":
+                fpAddSubStations = parsed;
+                break;
+            case "stations.fpMulDiv":
+                fpMulDivStations = parsed;
+                break;
+            case "stations.intAlu":
+                intAluStations = parsed;
+                break;
+            case "stations.load":
+                loadStations = parsed;
+                break;
+            case "stations.store":
+                storeStations = parsed;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown config key: " + key);
+        }
+    }
+
+    // Boolean.parseBoolean would silently take anything else as false
+    private static boolean parseBoolean(String value) {
+        switch (value.trim().toLowerCase()) {
+            case "true":
+                return true;
+            case "false":
+                return false;
+            default:
+                throw new IllegalArgumentException(value);
+        }
+    }
+
+    private void setLevel(int level, String key, int value) {
+        switch (key.substring("cache.l2.".length())) {
+            case "size":
+                levelSize[level] = value;
+                break;
+            case "blockSize":
+                levelBlockSize[level] = value;
+                break;
+            case "associativity":
+                levelAssociativity[level] = value;
+                break;
+            case "hitLatency":
+                levelHitLatency[level] = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown config key: " + key);
+        }
+    }
+
+    public void setLatency(String mnemonic, int latency) {
+        String normalized = mnemonic.trim().toUpperCase();
+        for (InstructionType type : InstructionType.values()) {
+            if (type.getMnemonic().equals(normalized)) {
+                latencies.put(normalized, latency);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown instruction: " + mnemonic);
+    }
+
+    /**
+     * Build a simulator with these settings, mirroring the GUI's Apply Configuration.
+     */
+    public TomasuloSimulator createSimulator() {
+        if (blockSize <= 0 || cacheSize < blockSize) {
+            throw new IllegalArgumentException("Cache size must be at least one block: size="
+                    + cacheSize + ", blockSize=" + blockSize);
+        }
+        TomasuloSimulator simulator = new TomasuloSimulator(cacheSize, blockSize, associativity, replacementPolicy);
+        simulator.getCache().setHitLatency(hitLatency);
+        simulator.getCache().setMissPenalty(missPenalty);
+        if (memorySize != Constants.MEMORY_SIZE || memoryBackend != MainMemory.Backend.HEAP) {
+            simulator.getCache().setMainMemory(MainMemory.create(memoryBackend, memorySize));
+        }
+        for (int i = 0; i < LOWER_LEVELS; i++) {
+            if (levelSize[i] > 0) {
+                simulator.addCacheLevel(levelSize[i], levelBlockSize[i] == 0 ? blockSize : levelBlockSize[i],
+                        levelAssociativity[i], levelHitLatency[i], inclusion);
+            }
+        }
+        simulator.getCache().setAlignedLines(alignedLines);
+        simulator.setStoreForwarding(storeForwarding);
+        simulator.setForwardingLatency(forwardingLatency);
+        simulator.setSpeculativeLoads(speculativeLoads);
+        if (storeSetTableSize != simulator.getDependencePredictor().getTableSize()) {
+            simulator.setDependencePredictor(new StoreSetPredictor(storeSetTableSize));
+        }
+        simulator.initializeStations(fpAddSubStations, fpMulDivStations, intAluStations,
+                loadStations, storeStations);
+        for (Map.Entry<String, Integer> entry : latencies.entrySet()) {
+            simulator.setInstructionLatency(entry.getKey(), entry.getValue());
+        }
+        return simulator;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getHitLatency() {
+        return hitLatency;
+    }
+
+    public int getMissPenalty() {
+        return missPenalty;
+    }
+
+    public int getAssociativity() {
+        return associativity;
+    }
+
+    public ReplacementPolicy.Type getReplacementPolicy() {
+        return replacementPolicy;
+    }
+
+    /** Size in bytes of cache level {@code level} (2 or 3); 0 if there is no such level. */
+    public int getLevelSize(int level) {
+        return levelSize[level - 2];
+    }
+
+    public boolean isAlignedLines() {
+        return alignedLines;
+    }
+
+    public Cache.Inclusion getInclusion() {
+        return inclusion;
+    }
+
+    public long getMemorySize() {
+        return memorySize;
+    }
+
+    public MainMemory.Backend getMemoryBackend() {
+        return memoryBackend;
+    }
+
+    public boolean isStoreForwarding() {
+        return storeForwarding;
+    }
+
+    public int getForwardingLatency() {
+        return forwardingLatency;
+    }
+
+    public boolean isSpeculativeLoads() {
+        return speculativeLoads;
+    }
+
+    public int getStoreSetTableSize() {
+        return storeSetTableSize;
+    }
+
+    public int getFpAddSubStations() {
+        return fpAddSubStations;
+    }
+
+    public int getFpMulDivStations() {
+        return fpMulDivStations;
+    }
+
+    public int getIntAluStations() {
+        return intAluStations;
+    }
+
+    public int getLoadStations() {
+        return loadStations;
+    }
+
+    public int getStoreStations() {
+        return storeStations;
+    }
+
+    public Map<String, Integer> getLatencies() {
+        return latencies;
+    }
+}
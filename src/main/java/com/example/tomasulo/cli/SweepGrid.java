@@ -0,0 +1,144 @@
+package com.example.tomasulo.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cartesian product of {@link SimulatorConfig} settings. Each line of a grid
+ * file names a config key and the values to try:
+ * <pre>
+ * stations.fpAddSub=1,2,3
+ * cache.size=256,512,1024
+ * latency.MUL.D=4..10:2
+ * </pre>
+ * {@code lo..hi} is an inclusive range with an optional {@code :step}. Points
+ * are numbered with the last axis varying fastest and decoded on demand, so
+ * large grids are never materialized.
+ */
+public class SweepGrid {
+    private final Map<String, List<String>> axes = new LinkedHashMap<>();
+
+    public static SweepGrid load(Path file) throws IOException {
+        SweepGrid grid = new SweepGrid();
+        List<String> lines = Files.readAllLines(file);
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int eq = line.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException(file + ":" + (n + 1) + ": invalid grid line: " + line);
+            }
+            try {
+                grid.addAxis(line.substring(0, eq).trim(), parseValues(line.substring(eq + 1)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(file + ":" + (n + 1) + ": " + e.getMessage());
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key is not a config key, is repeated or has no values
+     */
+    public void addAxis(String key, List<String> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No values for " + key);
+        }
+        if (axes.containsKey(key)) {
+            throw new IllegalArgumentException("Duplicate axis: " + key);
+        }
+        // Validate key and values up front rather than failing inside the sweep
+        SimulatorConfig probe = new SimulatorConfig();
+        for (String value : values) {
+            probe.set(key, value);
+        }
+        axes.put(key, Collections.unmodifiableList(new ArrayList<>(values)));
+    }
+
+    private static List<String> parseValues(String spec) {
+        List<String> values = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+            int range = part.indexOf("..");
+            if (range < 0) {
+                values.add(part);
+                continue;
+            }
+            try {
+                int lo = Integer.parseInt(part.substring(0, range).trim());
+                String rest = part.substring(range + 2);
+                int step = 1;
+                int colon = rest.indexOf(':');
+                if (colon >= 0) {
+                    step = Integer.parseInt(rest.substring(colon + 1).trim());
+                    rest = rest.substring(0, colon);
+                }
+                int hi = Integer.parseInt(rest.trim());
+                if (step <= 0 || hi < lo) {
+                    throw new IllegalArgumentException("Invalid range: " + part);
+                }
+                for (long v = lo; v <= hi; v += step) {
+                    values.add(Long.toString(v));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid range: " + part);
+            }
+        }
+        return values;
+    }
+
+    public List<String> getKeys() {
+        return new ArrayList<>(axes.keySet());
+    }
+
+    /**
+     * Number of points in the grid; 1 for an empty grid (the base config alone).
+     */
+    public long size() {
+        long size = 1;
+        for (List<String> values : axes.values()) {
+            size = Math.multiplyExact(size, values.size());
+        }
+        return size;
+    }
+
+    /**
+     * Values of point {@code index}, in {@link #getKeys()} order.
+     */
+    public List<String> valuesAt(long index) {
+        List<List<String>> lists = new ArrayList<>(axes.values());
+        String[] result = new String[lists.size()];
+        for (int i = lists.size() - 1; i >= 0; i--) {
+            List<String> values = lists.get(i);
+            result[i] = values.get((int) (index % values.size()));
+            index /= values.size();
+        }
+        List<String> out = new ArrayList<>(result.length);
+        Collections.addAll(out, result);
+        return out;
+    }
+
+    /**
+     * Copy of {@code base} with point {@code index} applied.
+     */
+    public SimulatorConfig configAt(long index, SimulatorConfig base) {
+        SimulatorConfig config = new SimulatorConfig(base);
+        List<String> keys = getKeys();
+        List<String> values = valuesAt(index);
+        for (int i = 0; i < keys.size(); i++) {
+            config.set(keys.get(i), values.get(i));
+        }
+        return config;
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.tomasulo.cli;
+
+import com.example.tomasulo.components.CopyOnWriteMemory;
+import com.example.tomasulo.components.MainMemory;
+import com.example.tomasulo.components.MappedMemory;
+import com.example.tomasulo.core.Instruction;
+import com.example.tomasulo.core.InstructionParser;
+import com.example.tomasulo.core.TomasuloSimulator;
+import com.example.tomasulo.utils.Constants;
+import com.example.tomasulo.utils.StallReason;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Design-space sweep: runs one program once per {@link SweepGrid} point, each
+ * on its own {@link TomasuloSimulator}, in parallel on a ForkJoinPool, and
+ * streams one CSV row per point as it finishes.
+ *
+ * <pre>
+ * SweepRunner &lt;program&gt; --grid FILE [--config FILE] [--registers FILE] [--memory FILE]
+ *             [--max-cycles N] [--threads N] [--output FILE] [--memory-image FILE]
+ * </pre>
+ *
+ * Rows arrive in completion order; the {@code point} column gives the grid
+ * index. Points whose settings cannot be simulated (e.g. a cache smaller than
+ * one block) get status {@code error} instead of aborting the sweep.
+ *
+ * Preloaded memory is built once and shared: every point runs on a
+ * {@link CopyOnWriteMemory} over it, so memory use is one image plus the pages
+ * each point writes. {@code --memory-image} shares an image file the same
+ * way, mapped read-only so nothing can write to it. The shared image fixes the memory
+ * size, so grid values for {@code memory.size} and {@code memory.backend}
+ * only apply when there is no preloaded memory.
+ */
+public class SweepRunner implements Closeable {
+    private static final String USAGE =
+            "Usage: SweepRunner <program> --grid FILE [--config FILE] [--registers FILE] [--memory FILE]"
+            + " [--max-cycles N] [--threads N] [--output FILE] [--memory-image FILE]";
+
+    private final List<Instruction> program;
+    private final Preload preload;
+    private final SimulatorConfig baseConfig;
+    private final SweepGrid grid;
+    private final int maxCycles;
+    private MainMemory sharedMemory;  // Base of every point's memory, or null
+    private boolean memoryPreloaded;  // sharedMemory already holds the preload's memory values
+
+    /**
+     * @param program parsed program; never modified, each point runs on copies
+     */
+    public SweepRunner(List<Instruction> program, Preload preload, SimulatorConfig baseConfig,
+                       SweepGrid grid, int maxCycles) {
+        this.program = program;
+        this.preload = preload;
+        this.baseConfig = baseConfig;
+        this.grid = grid;
+        this.maxCycles = maxCycles;
+        if (preload.hasMemory()) {
+            sharedMemory = MainMemory.create(baseConfig.getMemoryBackend(), baseConfig.getMemorySize());
+            preload.writeMemory(sharedMemory);
+            memoryPreloaded = true;
+        }
+    }
+
+    /**
+     * Run every point on a copy-on-write view of {@code image}, which is only
+     * read. Preloaded memory values are then written to each point's view.
+     */
+    public void setMemoryImage(MainMemory image) {
+        if (memoryPreloaded) {
+            closeMemory(sharedMemory); // the preload now goes into each point's view
+        }
+        this.sharedMemory = image;
+        this.memoryPreloaded = false;
+    }
+
+    /**
+     * Run every grid point on {@code parallelism} worker threads and write the CSV to {@code out}.
+     */
+    public void run(int parallelism, Writer out) throws IOException, InterruptedException {
+        PrintWriter csv = new PrintWriter(out);
+        csv.println(header());
+        csv.flush();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // A parallel stream started from inside the pool runs its tasks there
+            pool.submit(() -> LongStream.range(0, grid.size()).parallel().forEach(index -> {
+                String row = runPoint(index);
+                synchronized (csv) {
+                    csv.println(row);
+                    csv.flush();
+                }
+            })).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Sweep failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        if (csv.checkError()) {
+            throw new IOException("Error writing sweep results");
+        }
+    }
+
+    private String header() {
+        StringBuilder sb = new StringBuilder("point");
+        for (String key : grid.getKeys()) {
+            sb.append(',').append(key);
+        }
+        sb.append(",status,cycles,instructions,ipc,cacheHits,cacheMisses,hitRate,forwardedLoads,"
+                + "speculatedLoads,orderViolations,replayedLoads");
+        for (StallReason reason : StallReason.values()) {
+            sb.append(",stall_").append(reason.name().toLowerCase());
+        }
+        return sb.toString();
+    }
+
+    private String runPoint(long index) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(index);
+        for (String value : grid.valuesAt(index)) {
+            sb.append(',').append(value);
+        }
+
+        TomasuloSimulator simulator;
+        try {
+            simulator = grid.configAt(index, baseConfig).createSimulator();
+        } catch (IllegalArgumentException e) {
+            sb.append(",error");
+            for (int i = 0; i < 10 + StallReason.values().length; i++) {
+                sb.append(',');
+            }
+            return sb.toString();
+        }
+
+        if (sharedMemory != null) {
+            simulator.getCache().setMainMemory(new CopyOnWriteMemory(sharedMemory));
+        }
+        simulator.getState().getLog().setEnabled(false);
+        simulator.getState().getTrace().setRetention(0);
+        List<Instruction> instructions = new ArrayList<>(program.size());
+        for (Instruction inst : program) {
+            instructions.add(inst.copy());
+        }
+        simulator.loadInstructions(instructions);
+        if (memoryPreloaded) {
+            preload.applyRegistersTo(simulator);
+        } else {
+            preload.applyTo(simulator);
+        }
+        boolean completed;
+        SimulationReport report;
+        try {
+            completed = simulator.runUntilComplete(maxCycles);
+            report = SimulationReport.summarize("", simulator, completed);
+        } finally {
+            // Off-heap memory is freed now rather than whenever the point is collected
+            closeMemory(simulator.getCache().getMainMemory());
+        }
+        sb.append(',').append(completed ? "completed" : "timeout");
+        sb.append(',').append(report.getCycles());
+        sb.append(',').append(report.getInstructionsCompleted());
+        sb.append(',').append(String.format(Locale.ROOT, "%.6f", report.getIpc()));
+        sb.append(',').append(report.getCacheHits());
+        sb.append(',').append(report.getCacheMisses());
+        sb.append(',').append(String.format(Locale.ROOT, "%.6f", report.getCacheHitRate()));
+        sb.append(',').append(report.getForwardedLoads());
+        sb.append(',').append(report.getSpeculatedLoads());
+        sb.append(',').append(report.getOrderViolations());
+        sb.append(',').append(report.getReplayedLoads());
+        for (StallReason reason : StallReason.values()) {
+            sb.append(',').append(report.getStallCycles(reason));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Free the preloaded memory shared by the points. An image passed to
+     * {@link #setMemoryImage} belongs to the caller and is left open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (memoryPreloaded) {
+            sharedMemory.close();
+        }
+    }
+
+    private static void closeMemory(MainMemory memory) {
+        try {
+            memory.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) {
+        PrintStream out = System.out;
+        // Trace output (-Dtomasulo.trace=true) goes to System.out; keep it off the CSV stream
+        System.setOut(System.err);
+        try {
+            System.exit(run(args, out));
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    static int run(String[] args, PrintStream stdout) {
+        String programFile = null;
+        Path gridFile = null;
+        Path configFile = null;
+        Path registersFile = null;
+        Path memoryFile = null;
+        Path outputFile = null;
+        Path imageFile = null;
+        int maxCycles = Constants.DEFAULT_MAX_CYCLES;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--grid":
+                        gridFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--config":
+                        configFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--registers":
+                        registersFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--memory":
+                        memoryFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--output":
+                        outputFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--memory-image":
+                        imageFile = Paths.get(requireValue(args, ++i, arg));
+                        break;
+                    case "--max-cycles":
+                        maxCycles = Integer.parseInt(requireValue(args, ++i, arg));
+                        if (maxCycles <= 0) {
+                            throw new IllegalArgumentException("--max-cycles must be positive");
+                        }
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(requireValue(args, ++i, arg));
+                        if (threads <= 0) {
+                            throw new IllegalArgumentException("--threads must be positive");
+                        }
+                        break;
+                    case "-h":
+                    case "--help":
+                        stdout.println(USAGE);
+                        return 0;
+                    default:
+                        if (arg.startsWith("--") || programFile != null) {
+                            throw new IllegalArgumentException("Unexpected argument: " + arg);
+                        }
+                        programFile = arg;
+                }
+            }
+            if (programFile == null) {
+                throw new IllegalArgumentException("No program file given");
+            }
+            if (gridFile == null) {
+                throw new IllegalArgumentException("No grid file given");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            return 1;
+        }
+
+        MappedMemory image = null;
+        try {
+            SimulatorConfig config = configFile != null ? SimulatorConfig.load(configFile) : new SimulatorConfig();
+            SweepGrid grid = SweepGrid.load(gridFile);
+            Preload preload = Preload.load(registersFile, memoryFile);
+            List<Instruction> instructions = new InstructionParser().parseFile(programFile);
+
+            try (SweepRunner sweep = new SweepRunner(instructions, preload, config, grid, maxCycles)) {
+                if (imageFile != null) {
+                    image = MappedMemory.openReadOnly(imageFile);
+                    sweep.setMemoryImage(image);
+                }
+                if (outputFile != null) {
+                    try (Writer writer = Files.newBufferedWriter(outputFile)) {
+                        sweep.run(threads, writer);
+                    }
+                } else {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(stdout));
+                    sweep.run(threads, writer);
+                    writer.flush();
+                }
+            }
+            return 0;
+        } catch (IOException | IllegalArgumentException | ArithmeticException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Error: sweep interrupted");
+            return 1;
+        } finally {
+            if (image != null) {
+                try {
+                    image.close();
+                } catch (IOException e) {
+                    System.err.println("Error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String requireValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+}
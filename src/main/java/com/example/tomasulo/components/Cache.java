@@ -3,78 +3,165 @@ package com.example.tomasulo.components;
 import com.example.tomasulo.utils.Constants;
 
 import java.util.Arrays;
+import java.util.BitSet;
 
+/**
+ * Write-back, write-allocate cache in front of main memory.
+ *
+ * The cache is split into sets of {@code associativity} ways; a block maps to
+ * set {@code (address / blockSize) % numSets} and may sit in any way of it.
+ * Blocks are numbered {@code set * associativity + way}. An associativity of 1
+ * is direct-mapped and {@link #FULLY_ASSOCIATIVE} puts every block in a single
+ * set. A miss fills an invalid way if the set has one, otherwise the
+ * {@link ReplacementPolicy} picks the victim.
+ *
+ * Levels can be chained with {@link #setNextLevel}. The first level keeps the
+ * same load/probeStore/store contract, but misses are served from the level
+ * below instead of memory: an access costs the hit latency of the level that
+ * had the data, or the first level's miss penalty if it came from memory.
+ * Every level shares the first level's main memory.
+ *
+ * Main memory is a {@link MainMemory}, a sparse {@link HeapMemory} of
+ * {@link Constants#MEMORY_SIZE} bytes unless {@link #setMainMemory} replaces
+ * it. Accesses past its end read as zero and writes there are dropped.
+ *
+ * Unaligned blocks can overlap, even across neighbouring sets. A level never
+ * holds two blocks that share a byte: filling a block evicts every block it
+ * overlaps, so a store cannot leave a stale copy for a later load to hit.
+ *
+ * Block contents live in one contiguous array, block {@code i} at offset
+ * {@code i * blockSize}, and block state in parallel primitive arrays.
+ * {@link #loadLong}, {@link #storeLong} and {@link #probeStoreLatency} work
+ * without allocating; {@link #load}, {@link #store} and {@link #probeStore}
+ * return a new result per call. {@link #getBlock} returns a read-only view for
+ * display.
+ */
 public class Cache {
-    private CacheBlock[] blocks;
+    public static final int FULLY_ASSOCIATIVE = 0;
+
+    /** How a level relates to the level below it. */
+    public enum Inclusion {
+        /** The level below holds a copy of every block here; evicting it there drops the copies. */
+        INCLUSIVE,
+        /** A block lives in one of the two levels: hits below move up, victims move down. */
+        EXCLUSIVE
+    }
+
+    private CacheBlock[] blocks; // Views for display
     private int cacheSize;
     private int blockSize;
     private int numBlocks;
+    private int associativity;
+    private int numSets;
+    private ReplacementPolicy.Type policyType;
+    private ReplacementPolicy policy;
+    private byte[] lineData; // Block contents, blockSize bytes per block
+    private boolean[] lineValid;
+    private boolean[] lineDirty;
+    private int[] lineBase;
+    private int[] lineTag;
+    private byte[] scratch; // Holds a block fetched from an exclusive level while the victim moves down
+    private boolean alignedLines; // Blocks start at block boundaries and hits compare tags
     private int hitLatency;
     private int missPenalty;
-    private byte[] memory; // Main memory
+    private MainMemory memory;
     private int hits;
     private int misses;
+    private final BitSet changedBlocks = new BitSet(); // Indices modified since clearChangedBlocks()
+    private Cache next;     // Level below, or null for main memory
+    private Cache previous; // Level above, or null for the first level
+    private Inclusion inclusion = Inclusion.INCLUSIVE; // Relation to next
+    private int fillLatency;      // Hit latency of the level that served the last fill; -1 for memory
+    private boolean fetchedDirty; // The last fetch from an exclusive level below took ownership of dirty data
+    private boolean movedDirty;   // The last exclusive fetch from this level handed over dirty data
+    private boolean lastHit;      // Outcome of the most recent access
+    private boolean probeHit;     // Outcome of the most recent store probe
+    private int lastLatency;
     
+    /** Direct-mapped cache. */
     public Cache(int cacheSize, int blockSize, int hitLatency, int missPenalty) {
+        this(cacheSize, blockSize, 1, ReplacementPolicy.Type.LRU, hitLatency, missPenalty);
+    }
+    
+    /**
+     * @param associativity ways per set, or {@link #FULLY_ASSOCIATIVE}
+     * @throws IllegalArgumentException if the block count is not a positive multiple of the associativity,
+     *         or the policy cannot handle it
+     */
+    public Cache(int cacheSize, int blockSize, int associativity, ReplacementPolicy.Type policyType,
+                 int hitLatency, int missPenalty) {
         this.cacheSize = cacheSize;
         this.blockSize = blockSize;
         this.numBlocks = cacheSize / blockSize;
+        this.associativity = associativity == FULLY_ASSOCIATIVE ? numBlocks : associativity;
+        if (numBlocks <= 0 || this.associativity <= 0 || numBlocks % this.associativity != 0) {
+            throw new IllegalArgumentException("Cannot split " + numBlocks + " blocks into sets of "
+                    + this.associativity);
+        }
+        this.numSets = numBlocks / this.associativity;
+        this.policyType = policyType;
+        this.policy = ReplacementPolicy.create(policyType, numSets, this.associativity,
+                Constants.DEFAULT_CACHE_SEED);
         this.hitLatency = hitLatency;
         this.missPenalty = missPenalty;
         this.blocks = new CacheBlock[numBlocks];
-        this.memory = new byte[Constants.MEMORY_SIZE];
+        this.lineData = new byte[numBlocks * blockSize];
+        this.lineValid = new boolean[numBlocks];
+        this.lineDirty = new boolean[numBlocks];
+        this.lineBase = new int[numBlocks];
+        this.lineTag = new int[numBlocks];
+        this.scratch = new byte[blockSize];
+        this.memory = new HeapMemory(Constants.MEMORY_SIZE);
         
         for (int i = 0; i < numBlocks; i++) {
-            blocks[i] = new CacheBlock(blockSize);
+            blocks[i] = new CacheBlock(this, i);
         }
         
-        Arrays.fill(memory, (byte) 0);
         hits = 0;
         misses = 0;
     }
     
     public CacheResult load(int address, int size) {
-        // In this model, a single cache block always holds a full value
+        // By default a single cache block always holds a full value
         // (e.g., 8-byte double) starting exactly at the requested address.
-        // The block does not span multiple logical values across blocks.
+        // With aligned lines an access that crosses a line boundary touches
+        // each line in turn and only hits if all of them do.
         byte[] data = new byte[size];
-
-        int cacheIndex = getCacheIndex(address);
-        CacheBlock block = blocks[cacheIndex];
-
-        boolean hit = block.isValid()
-                && address >= block.getBaseAddress()
-                && (address + size) <= (block.getBaseAddress() + block.getBlockSize());
-
-        if (!hit) {
-            misses++;
-            // Write-back on eviction if needed
-            writeBackIfDirty(block);
-
-            // Load a new block starting exactly at this address
-            int baseAddress = address;
-            byte[] blockData = new byte[blockSize];
-            int len = Math.min(blockSize, memory.length - baseAddress);
-            if (len > 0) {
-                System.arraycopy(memory, baseAddress, blockData, 0, len);
+        startAccess();
+        for (int done = 0; done < size; ) {
+            int part = address + done;
+            int length = partLength(part, size - done);
+            int cacheIndex = touch(part, length);
+            int inLine = part - lineBase[cacheIndex];
+            System.arraycopy(lineData, cacheIndex * blockSize + inLine, data, done,
+                    Math.min(length, blockSize - inLine));
+            done += length;
+        }
+        return new CacheResult(lastHit, lastLatency, data);
+    }
+    
+    /**
+     * Like {@link #load} but returns the {@code size} bytes (at most 8) as a
+     * little-endian unsigned value and allocates nothing. Hit and latency are
+     * available from {@link #isLastHit()} and {@link #getLastLatency()}.
+     */
+    public long loadLong(int address, int size) {
+        checkLongSize(size);
+        startAccess();
+        long value = 0L;
+        for (int done = 0; done < size; ) {
+            int part = address + done;
+            int length = partLength(part, size - done);
+            int cacheIndex = touch(part, length);
+            int inLine = part - lineBase[cacheIndex];
+            int offset = cacheIndex * blockSize + inLine;
+            int available = Math.min(length, blockSize - inLine);
+            for (int i = 0; i < available; i++) {
+                value |= (long) (lineData[offset + i] & 0xFF) << (8 * (done + i));
             }
-
-            block.setData(blockData);
-            block.setTag(computeTag(address));
-            block.setBaseAddress(baseAddress);
-            block.setValid(true);
-            block.setDirty(false);
-
-            // Entire access is treated as a miss
-            System.arraycopy(blockData, 0, data, 0, Math.min(size, blockSize));
-            return new CacheResult(false, missPenalty, data);
-        } else {
-            hits++;
-            int offset = address - block.getBaseAddress();
-            byte[] chunk = block.readBytes(offset, size);
-            System.arraycopy(chunk, 0, data, 0, chunk.length);
-            return new CacheResult(true, hitLatency, data);
+            done += length;
         }
+        return value;
     }
     
     /**
@@ -82,64 +169,88 @@ public class Cache {
      * without modifying the cache state. Used for latency calculation.
      */
     public CacheResult probeStore(int address, int size) {
-        int cacheIndex = getCacheIndex(address);
-        CacheBlock block = blocks[cacheIndex];
-
-        boolean hit = block.isValid()
-                && address >= block.getBaseAddress()
-                && (address + size) <= (block.getBaseAddress() + block.getBlockSize());
-
-        if (hit) {
-            return new CacheResult(true, hitLatency, null);
-        } else {
-            return new CacheResult(false, missPenalty, null);
+        int latency = probeStoreLatency(address, size);
+        return new CacheResult(probeHit, latency, null);
+    }
+    
+    /**
+     * Like {@link #probeStore} but returns only the latency and allocates
+     * nothing. Cache state and the last access outcome are left unchanged.
+     */
+    public int probeStoreLatency(int address, int size) {
+        probeHit = true;
+        int latency = 0;
+        for (int done = 0; done < size; ) {
+            int part = address + done;
+            int length = partLength(part, size - done);
+            if (lookup(getCacheIndex(part), part, length) >= 0) {
+                latency = Math.max(latency, hitLatency);
+            } else {
+                probeHit = false;
+                latency = Math.max(latency, missLatency(probeBelow(part)));
+            }
+            done += length;
         }
+        return latency;
     }
     
     public CacheResult store(int address, byte[] data) {
         int size = data.length;
+        startAccess();
+        for (int done = 0; done < size; ) {
+            int part = address + done;
+            int length = partLength(part, size - done);
+            // Write-allocate: a miss brings the block in from below first
+            int cacheIndex = touch(part, length);
 
-        int cacheIndex = getCacheIndex(address);
-        CacheBlock block = blocks[cacheIndex];
-
-        boolean hit = block.isValid()
-                && address >= block.getBaseAddress()
-                && (address + size) <= (block.getBaseAddress() + block.getBlockSize());
-
-        if (!hit) {
-            misses++;
-            // Evict and write-back if needed
-            writeBackIfDirty(block);
-
-            // Write-allocate: bring the block from memory, starting exactly at this address
-            int baseAddress = address;
-            byte[] blockData = new byte[blockSize];
-            int len = Math.min(blockSize, memory.length - baseAddress);
-            if (len > 0) {
-                System.arraycopy(memory, baseAddress, blockData, 0, len);
-            }
-
-            block.setData(blockData);
-            block.setTag(computeTag(address));
-            block.setBaseAddress(baseAddress);
-            block.setValid(true);
-            block.setDirty(false);
-        } else {
-            hits++;
+            // Perform the store into the cache block and mark it dirty
+            int inLine = part - lineBase[cacheIndex];
+            System.arraycopy(data, done, lineData, cacheIndex * blockSize + inLine,
+                    Math.min(length, blockSize - inLine));
+            markDirty(cacheIndex);
+            done += length;
         }
 
-        // Perform the store into the cache block and mark it dirty
-        int offset = address - block.getBaseAddress();
-        block.writeBytes(offset, data);
-        block.setDirty(true);
-
         // Write-back cache: do not update main memory now, it will be updated on eviction
-        return new CacheResult(hit, hit ? hitLatency : missPenalty, null);
+        return new CacheResult(lastHit, lastLatency, null);
+    }
+    
+    /**
+     * Like {@link #store} with the low {@code size} bytes (at most 8) of
+     * {@code value} in little-endian order, allocating nothing.
+     */
+    public void storeLong(int address, int size, long value) {
+        checkLongSize(size);
+        startAccess();
+        for (int done = 0; done < size; ) {
+            int part = address + done;
+            int length = partLength(part, size - done);
+            int cacheIndex = touch(part, length);
+            int inLine = part - lineBase[cacheIndex];
+            int offset = cacheIndex * blockSize + inLine;
+            int available = Math.min(length, blockSize - inLine);
+            for (int i = 0; i < available; i++) {
+                lineData[offset + i] = (byte) (value >>> (8 * (done + i)));
+            }
+            markDirty(cacheIndex);
+            done += length;
+        }
+    }
+    
+    /** Whether every line touched by the most recent load or store hit. */
+    public boolean isLastHit() {
+        return lastHit;
+    }
+    
+    /** Latency of the most recent load or store. */
+    public int getLastLatency() {
+        return lastLatency;
     }
     
     public void writeMemory(int address, byte[] data) {
-        for (int i = 0; i < data.length && address + i < memory.length; i++) {
-            memory[address + i] = data[i];
+        int len = inMemory(address, data.length);
+        if (len > 0) {
+            memory.write(address, data, 0, len);
         }
     }
     
@@ -153,7 +264,15 @@ public class Cache {
      *   next 8 bits, etc.
      */
     public void initializeMemory(int address, double value, int size) {
-        if (address < 0 || address >= memory.length) {
+        initializeMemory(memory, address, value, size);
+    }
+    
+    /**
+     * {@link #initializeMemory(int, double, int)} on a memory directly, e.g. to
+     * build a base image before any cache uses it.
+     */
+    public static void initializeMemory(MainMemory memory, int address, double value, int size) {
+        if (address < 0 || address >= memory.size()) {
             return; // Invalid address
         }
         
@@ -163,23 +282,46 @@ public class Cache {
             data[i] = (byte) ((intValue >> (8 * i)) & 0xFF);
         }
         
-        writeMemory(address, data);
+        memory.write(address, data, 0, (int) Math.min(size, memory.size() - address));
     }
     
     public byte[] readMemory(int address, int size) {
         byte[] result = new byte[size];
-        for (int i = 0; i < size && address + i < memory.length; i++) {
-            result[i] = memory[address + i];
+        int len = inMemory(address, size);
+        if (len > 0) {
+            memory.read(address, result, 0, len);
         }
         return result;
     }
     
+    public MainMemory getMainMemory() {
+        return memory;
+    }
+    
+    /**
+     * Back this cache and every level below it with {@code memory}. All levels
+     * are emptied, since their blocks came from the old memory; the old memory
+     * is not closed.
+     */
+    public void setMainMemory(MainMemory memory) {
+        for (Cache level = this; level != null; level = level.next) {
+            level.memory = memory;
+        }
+        reset();
+    }
+    
+    // Bytes of an access at address that fall inside main memory
+    private int inMemory(int address, int length) {
+        return (int) Math.max(Math.min(length, memory.size() - address), 0);
+    }
+    
+    /** Set that {@code address} maps to; its blocks are {@code set * associativity} onward. */
     public int getCacheIndex(int address) {
         int blockNumber = address / blockSize;
-        int index = blockNumber % numBlocks;
+        int index = blockNumber % numSets;
         // Handle negative indices (can happen with negative addresses)
         if (index < 0) {
-            index += numBlocks;
+            index += numSets;
         }
         return index;
     }
@@ -195,6 +337,87 @@ public class Cache {
         return numBlocks;
     }
     
+    public int getBlockSize() {
+        return blockSize;
+    }
+    
+    /** Ways per set; equal to {@link #getNumBlocks()} when fully associative. */
+    public int getAssociativity() {
+        return associativity;
+    }
+    
+    public int getNumSets() {
+        return numSets;
+    }
+    
+    public ReplacementPolicy.Type getReplacementPolicy() {
+        return policyType;
+    }
+    
+    /** The level below this one, or null if misses go to main memory. */
+    public Cache getNextLevel() {
+        return next;
+    }
+    
+    public Inclusion getInclusion() {
+        return inclusion;
+    }
+    
+    /**
+     * Serve misses from {@code next} instead of main memory. {@code next}
+     * (and anything below it) switches to this cache's memory, and its miss
+     * penalty is ignored: only the first level's counts.
+     *
+     * @throws IllegalArgumentException if an exclusive level has a different block size,
+     *         or an inclusive one a smaller block size, than this cache
+     */
+    public void setNextLevel(Cache next, Inclusion inclusion) {
+        checkBlockSizes(next, inclusion, alignedLines);
+        this.next = next;
+        this.inclusion = inclusion;
+        next.previous = this;
+        for (Cache level = next; level != null; level = level.next) {
+            level.memory = memory;
+        }
+        next.setAlignedLines(alignedLines);
+    }
+    
+    public boolean isAlignedLines() {
+        return alignedLines;
+    }
+    
+    /**
+     * Switch between blocks that start exactly at the missing address (the
+     * default) and block-aligned lines, where index and tag come from the
+     * aligned address and a hit is a tag match. Applies to the levels below
+     * too and empties the cache, so set it before the first access.
+     *
+     * @throws IllegalArgumentException if aligned lines are asked for and an inclusive
+     *         level below has a block size that is not a multiple of this one
+     */
+    public void setAlignedLines(boolean alignedLines) {
+        if (next != null) {
+            checkBlockSizes(next, inclusion, alignedLines);
+            next.setAlignedLines(alignedLines);
+        }
+        this.alignedLines = alignedLines;
+        reset();
+    }
+    
+    private void checkBlockSizes(Cache next, Inclusion inclusion, boolean aligned) {
+        boolean fits;
+        if (inclusion == Inclusion.EXCLUSIVE) {
+            fits = next.blockSize == blockSize;
+        } else {
+            // An upper block must fit inside one block below
+            fits = aligned ? next.blockSize % blockSize == 0 : next.blockSize >= blockSize;
+        }
+        if (!fits) {
+            throw new IllegalArgumentException(inclusion + " level below cannot hold " + blockSize
+                    + "-byte blocks in " + next.blockSize + "-byte blocks");
+        }
+    }
+    
     public int getHits() {
         return hits;
     }
@@ -209,42 +432,410 @@ public class Cache {
     }
 
     /**
-     * Compute a tag value for a given address. For direct-mapped caches this
-     * effectively captures the high-order bits beyond the index.
+     * Compute a tag value for a given address: the high-order bits of the
+     * block number beyond the set index.
      */
     private int computeTag(int address) {
         int blockNumber = address / blockSize;
-        return blockNumber / numBlocks;
+        return blockNumber / numSets;
+    }
+
+    /**
+     * Block index holding {@code size} bytes at {@code address} in {@code set},
+     * or -1. With aligned lines the bytes are within one line and only the tag
+     * is compared.
+     */
+    private int lookup(int set, int address, int size) {
+        int first = set * associativity;
+        int end = first + associativity;
+        if (alignedLines) {
+            int tag = computeTag(address);
+            for (int i = first; i < end; i++) {
+                if (lineValid[i] && lineTag[i] == tag) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        for (int i = first; i < end; i++) {
+            if (lineValid[i] && address >= lineBase[i] && address + size <= lineBase[i] + blockSize) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void startAccess() {
+        lastHit = true;
+        lastLatency = 0;
     }
 
     /**
-     * If the given block is valid and dirty, write its contents back to main
-     * memory using its baseAddress as the starting address.
+     * Find or fill the block for {@code length} bytes at {@code address},
+     * folding the outcome into the current access. Returns the block index.
      */
-    private void writeBackIfDirty(CacheBlock block) {
-        if (!block.isValid() || !block.isDirty()) {
+    private int touch(int address, int length) {
+        int set = getCacheIndex(address);
+        int cacheIndex = lookup(set, address, length);
+        if (cacheIndex < 0) {
+            misses++;
+            cacheIndex = fill(set, address);
+            lastHit = false;
+            lastLatency = Math.max(lastLatency, missLatency(fillLatency));
+        } else {
+            hits++;
+            policy.onHit(set, cacheIndex - set * associativity);
+            lastLatency = Math.max(lastLatency, hitLatency);
+        }
+        return cacheIndex;
+    }
+
+    private static void checkLongSize(int size) {
+        if (size < 1 || size > Long.BYTES) {
+            throw new IllegalArgumentException("Access size must be 1 to 8 bytes: " + size);
+        }
+    }
+
+    /**
+     * Evict a way of {@code set} and load the block holding {@code address}
+     * into it from the level below: the aligned line, or the block starting
+     * exactly at {@code address}. Returns the block index and leaves the
+     * serving level's latency in {@link #fillLatency}.
+     */
+    private int fill(int set, int address) {
+        int way = chooseWay(set);
+        int cacheIndex = set * associativity + way;
+        int baseAddress = alignedLines ? address - Math.floorMod(address, blockSize) : address;
+
+        // Push overlapping blocks down first, so the fetch below sees their data
+        evictOverlapping(baseAddress);
+        if (next != null && inclusion == Inclusion.EXCLUSIVE) {
+            // Take the block before moving the victim down, so the victim cannot displace it
+            fillLatency = fetchBelow(baseAddress, scratch, 0, blockSize);
+            boolean dirty = fetchedDirty;
+            evict(cacheIndex);
+            System.arraycopy(scratch, 0, lineData, cacheIndex * blockSize, blockSize);
+            install(cacheIndex, baseAddress, dirty);
+        } else {
+            evict(cacheIndex);
+            fillLatency = fetchBelow(baseAddress, lineData, cacheIndex * blockSize, blockSize);
+            install(cacheIndex, baseAddress, fetchedDirty);
+        }
+        policy.onFill(set, way);
+        return cacheIndex;
+    }
+
+    /**
+     * Evict every block sharing a byte with the unaligned block at
+     * {@code base}. Such blocks start less than a block away, so they sit in
+     * the sets of the neighbouring block numbers.
+     */
+    private void evictOverlapping(int base) {
+        if (alignedLines) {
             return;
         }
+        int set = getCacheIndex(base - blockSize + 1);
+        for (int n = overlapSets(base, blockSize); n > 0; n--) {
+            int end = (set + 1) * associativity;
+            for (int i = set * associativity; i < end; i++) {
+                if (lineValid[i] && lineBase[i] < base + blockSize && base < lineBase[i] + blockSize) {
+                    evict(i);
+                }
+            }
+            set = (set + 1) % numSets;
+        }
+    }
 
-        int baseAddress = block.getBaseAddress();
-        byte[] data = block.getData();
+    // Number of sets, starting at the one for start - blockSize + 1, that can hold blocks overlapping the range
+    private int overlapSets(int start, int length) {
+        int first = (start - blockSize + 1) / blockSize;
+        int last = (start + length - 1) / blockSize;
+        return Math.min(last - first + 1, numSets);
+    }
 
-        int len = Math.min(data.length, memory.length - baseAddress);
-        if (len > 0) {
-            System.arraycopy(data, 0, memory, baseAddress, len);
+    // An invalid way if there is one, else the policy's victim
+    private int chooseWay(int set) {
+        int first = set * associativity;
+        for (int way = 0; way < associativity; way++) {
+            if (!lineValid[first + way]) {
+                return way;
+            }
+        }
+        return policy.victim(set);
+    }
+
+    // Mark a block valid once its data is in place
+    private void install(int cacheIndex, int baseAddress, boolean dirty) {
+        lineValid[cacheIndex] = true;
+        lineDirty[cacheIndex] = dirty;
+        lineBase[cacheIndex] = baseAddress;
+        lineTag[cacheIndex] = computeTag(baseAddress);
+        changedBlocks.set(cacheIndex);
+    }
+
+    private void markDirty(int cacheIndex) {
+        lineDirty[cacheIndex] = true;
+        changedBlocks.set(cacheIndex);
+    }
+
+    private void invalidate(int cacheIndex) {
+        lineValid[cacheIndex] = false;
+        lineDirty[cacheIndex] = false;
+        changedBlocks.set(cacheIndex);
+    }
+
+    /**
+     * Remove a valid block: pull newer data down from inclusive levels above,
+     * then move it to an exclusive level below or write it back if dirty.
+     */
+    private void evict(int cacheIndex) {
+        if (!lineValid[cacheIndex]) {
+            return;
+        }
+        int offset = cacheIndex * blockSize;
+        if (previous != null && previous.inclusion == Inclusion.INCLUSIVE
+                && previous.backInvalidate(lineBase[cacheIndex], lineData, offset, blockSize)) {
+            lineDirty[cacheIndex] = true;
+        }
+        if (next != null && inclusion == Inclusion.EXCLUSIVE) {
+            next.insert(lineBase[cacheIndex], lineData, offset, lineDirty[cacheIndex]);
+        } else if (lineDirty[cacheIndex]) {
+            writeBelow(lineBase[cacheIndex], lineData, offset, blockSize);
+        }
+        invalidate(cacheIndex);
+    }
+
+    /**
+     * The level below is evicting the {@code length}-byte block at
+     * {@code base}, held in {@code data} from {@code dataOffset}: drop every
+     * block here that lies inside it, copying dirty contents into {@code data}
+     * first. Levels further up go last since their data is newer. Returns true
+     * if anything dirty was copied.
+     */
+    private boolean backInvalidate(int base, byte[] data, int dataOffset, int length) {
+        boolean dirty = false;
+        // Blocks inside the range start at base .. base + length - blockSize
+        int first = base / blockSize;
+        int last = Math.min((base + length - blockSize) / blockSize, first + numSets - 1);
+        for (int blockNumber = first; blockNumber <= last; blockNumber++) {
+            int set = blockNumber % numSets;
+            if (set < 0) {
+                set += numSets;
+            }
+            int end = (set + 1) * associativity;
+            for (int i = set * associativity; i < end; i++) {
+                if (lineValid[i] && lineBase[i] >= base && lineBase[i] + blockSize <= base + length) {
+                    if (lineDirty[i]) {
+                        System.arraycopy(lineData, i * blockSize, data, dataOffset + lineBase[i] - base, blockSize);
+                        dirty = true;
+                    }
+                    invalidate(i);
+                }
+            }
+        }
+        if (previous != null && previous.inclusion == Inclusion.INCLUSIVE) {
+            dirty |= previous.backInvalidate(base, data, dataOffset, length);
+        }
+        return dirty;
+    }
+
+    /**
+     * Fill {@code length} bytes of {@code dest} from {@code destOffset} with
+     * the bytes at {@code address} from the level below or memory. Returns the
+     * serving level's hit latency, or -1 for memory.
+     */
+    private int fetchBelow(int address, byte[] dest, int destOffset, int length) {
+        if (next == null) {
+            fetchedDirty = false;
+            int len = inMemory(address, length);
+            if (len > 0) {
+                memory.read(address, dest, destOffset, len);
+            }
+            // Past the end of memory reads as zero
+            Arrays.fill(dest, destOffset + len, destOffset + length, (byte) 0);
+            return -1;
+        }
+        boolean exclusive = inclusion == Inclusion.EXCLUSIVE;
+        int latency = next.fetch(address, dest, destOffset, length, exclusive);
+        fetchedDirty = exclusive && next.movedDirty;
+        return latency;
+    }
+
+    /**
+     * A miss in the level above. An inclusive level allocates the block on a
+     * miss and keeps it; an exclusive one hands a hit over and does not
+     * allocate on a miss.
+     */
+    private int fetch(int address, byte[] dest, int destOffset, int length, boolean exclusive) {
+        int set = getCacheIndex(address);
+        int cacheIndex = lookup(set, address, length);
+        int latency;
+        if (cacheIndex >= 0) {
+            hits++;
+            policy.onHit(set, cacheIndex - set * associativity);
+            latency = hitLatency;
+        } else {
+            misses++;
+            if (exclusive) {
+                // Nothing is allocated here, so overlapping blocks must not keep newer data
+                evictOverlapping(address);
+                latency = fetchBelow(address, dest, destOffset, length);
+                movedDirty = fetchedDirty;
+                return latency;
+            }
+            cacheIndex = fill(set, address);
+            latency = fillLatency;
         }
+        System.arraycopy(lineData, cacheIndex * blockSize + address - lineBase[cacheIndex], dest, destOffset, length);
+        if (exclusive) {
+            movedDirty = lineDirty[cacheIndex];
+            invalidate(cacheIndex);
+        }
+        return latency;
+    }
+
+    // Write dirty data to the level below, or memory
+    private void writeBelow(int baseAddress, byte[] data, int offset, int length) {
+        if (next == null) {
+            int len = inMemory(baseAddress, length);
+            if (len > 0) {
+                memory.write(baseAddress, data, offset, len);
+            }
+            return;
+        }
+        next.absorb(baseAddress, data, offset, length);
+    }
+
+    // Dirty data from the level above: update the block holding it, or pass it on without allocating
+    private void absorb(int baseAddress, byte[] data, int offset, int length) {
+        int cacheIndex = lookup(getCacheIndex(baseAddress), baseAddress, length);
+        if (cacheIndex >= 0) {
+            System.arraycopy(data, offset, lineData, cacheIndex * blockSize + baseAddress - lineBase[cacheIndex],
+                    length);
+            markDirty(cacheIndex);
+        } else if (alignedLines || absorbOverlapping(baseAddress, data, offset, length) < length) {
+            writeBelow(baseAddress, data, offset, length);
+        }
+    }
+
+    /**
+     * Copy the parts of {@code length} bytes at {@code baseAddress} that
+     * unaligned blocks here overlap into them. Returns how many bytes were
+     * covered; blocks do not overlap each other, so no byte is counted twice.
+     */
+    private int absorbOverlapping(int baseAddress, byte[] data, int offset, int length) {
+        int covered = 0;
+        int set = getCacheIndex(baseAddress - blockSize + 1);
+        for (int n = overlapSets(baseAddress, length); n > 0; n--) {
+            int end = (set + 1) * associativity;
+            for (int i = set * associativity; i < end; i++) {
+                int from = Math.max(baseAddress, lineBase[i]);
+                int to = Math.min(baseAddress + length, lineBase[i] + blockSize);
+                if (lineValid[i] && from < to) {
+                    System.arraycopy(data, offset + from - baseAddress, lineData, i * blockSize + from - lineBase[i],
+                            to - from);
+                    markDirty(i);
+                    covered += to - from;
+                }
+            }
+            set = (set + 1) % numSets;
+        }
+        return covered;
+    }
+
+    // A victim of the exclusive level above moving down
+    private void insert(int baseAddress, byte[] data, int offset, boolean dirty) {
+        int set = getCacheIndex(baseAddress);
+        int cacheIndex = lookup(set, baseAddress, blockSize);
+        if (cacheIndex >= 0) {
+            // An older copy; the data from above is newer
+            System.arraycopy(data, offset, lineData, cacheIndex * blockSize + baseAddress - lineBase[cacheIndex],
+                    blockSize);
+            lineDirty[cacheIndex] |= dirty;
+            changedBlocks.set(cacheIndex);
+            return;
+        }
+        evictOverlapping(baseAddress);
+        int way = chooseWay(set);
+        cacheIndex = set * associativity + way;
+        evict(cacheIndex);
+        System.arraycopy(data, offset, lineData, cacheIndex * blockSize, blockSize);
+        install(cacheIndex, baseAddress, dirty);
+        policy.onFill(set, way);
+    }
+
+    /**
+     * Latency a miss here would see, without changing any level: the hit
+     * latency of the first level below that holds the data, or -1 for memory.
+     */
+    private int probeBelow(int address) {
+        int size = blockSize;
+        Inclusion link = inclusion;
+        for (Cache level = next; level != null; level = level.next) {
+            if (level.lookup(level.getCacheIndex(address), address, size) >= 0) {
+                return level.hitLatency;
+            }
+            if (link == Inclusion.INCLUSIVE) {
+                size = level.blockSize; // it would fill its own block from below
+            }
+            link = level.inclusion;
+        }
+        return -1;
+    }
 
-        block.setDirty(false);
+    // Bytes of an access at address that fall in the same line
+    private int partLength(int address, int remaining) {
+        if (!alignedLines) {
+            return remaining;
+        }
+        return Math.min(remaining, blockSize - Math.floorMod(address, blockSize));
+    }
+
+    private int missLatency(int servedBy) {
+        return servedBy < 0 ? missPenalty : servedBy;
     }
     
-    public void reset() {
-        for (CacheBlock block : blocks) {
-            block.clear();
+    /**
+     * Write every dirty block back to main memory, through any lower levels, so
+     * {@link #readMemory} reflects all completed stores. Blocks stay valid, so
+     * hit/miss behaviour is unchanged.
+     */
+    public void flush() {
+        for (int i = 0; i < numBlocks; i++) {
+            if (lineValid[i] && lineDirty[i]) {
+                writeBelow(lineBase[i], lineData, i * blockSize, blockSize);
+                lineDirty[i] = false;
+                changedBlocks.set(i);
+            }
+        }
+        if (next != null) {
+            next.flush();
         }
+    }
+    
+    /** Indices of blocks whose contents or flags changed since the last {@link #clearChangedBlocks()}. */
+    public BitSet getChangedBlocks() {
+        return changedBlocks;
+    }
+    
+    public void clearChangedBlocks() {
+        changedBlocks.clear();
+    }
+    
+    /** Empty this level and every level below it. */
+    public void reset() {
+        Arrays.fill(lineData, (byte) 0);
+        Arrays.fill(lineValid, false);
+        Arrays.fill(lineDirty, false);
+        policy.reset();
         // Note: Memory is NOT cleared here to preserve user initialization
         // If you need to clear memory, use resetMemory() method
         hits = 0;
         misses = 0;
+        changedBlocks.set(0, numBlocks);
+        if (next != null) {
+            next.reset();
+        }
     }
     
     /**
@@ -252,7 +843,7 @@ public class Cache {
      * memory initialization to persist through cache resets.
      */
     public void resetMemory() {
-        Arrays.fill(memory, (byte) 0);
+        memory.clear();
     }
     
     public void setHitLatency(int hitLatency) {
@@ -267,10 +858,33 @@ public class Cache {
         return hitLatency;
     }
     
+    /** Latency of an access that misses every level. Only used on the first level. */
     public int getMissPenalty() {
         return missPenalty;
     }
     
+    // Block state for CacheBlock views
+
+    boolean isLineValid(int index) {
+        return lineValid[index];
+    }
+
+    boolean isLineDirty(int index) {
+        return lineDirty[index];
+    }
+
+    int getLineBase(int index) {
+        return lineBase[index];
+    }
+
+    int getLineTag(int index) {
+        return lineTag[index];
+    }
+
+    byte readLineByte(int index, int offset) {
+        return lineData[index * blockSize + offset];
+    }
+    
     public static class CacheResult {
         private boolean hit;
         private int latency;
@@ -0,0 +1,80 @@
+package com.example.tomasulo.components;
+
+/**
+ * A private, writable view of a shared base memory. Pages read through to the
+ * base until they are first written, at which point they are copied into this
+ * memory; the base itself is never written. Many simulators can run over one
+ * preloaded image this way, each paying only for the pages it dirties.
+ *
+ * The base must not change while views of it are in use. Concurrent reads
+ * from several views are safe for every {@link MainMemory} in this package.
+ *
+ * {@link #revert()} goes back to the base contents and {@link #clear()} to all
+ * zeros; both only drop the dirty pages.
+ */
+public class CopyOnWriteMemory extends PagedMemory<byte[]> {
+    private final MainMemory base;
+    private boolean baseHidden; // Cleared: untouched pages read as zero, not from the base
+
+    public CopyOnWriteMemory(MainMemory base) {
+        super(base.size());
+        this.base = base;
+    }
+
+    public MainMemory getBase() {
+        return base;
+    }
+
+    /** Pages copied from the base (or zero-filled after {@link #clear()}) since the last revert or clear. */
+    public int getDirtyPageCount() {
+        return allocatedPages();
+    }
+
+    /** Discard every write, so the memory reads as the base again. */
+    public void revert() {
+        super.clear();
+        baseHidden = false;
+    }
+
+    /** Zero the memory without touching the base. */
+    @Override
+    public void clear() {
+        super.clear();
+        baseHidden = true;
+    }
+
+    @Override
+    public long nextTouched(long address) {
+        long touched = super.nextTouched(address);
+        return baseHidden ? touched : Math.min(touched, base.nextTouched(address));
+    }
+
+    @Override
+    byte[] newPage(int index) {
+        byte[] page = new byte[PAGE_SIZE];
+        if (!baseHidden) {
+            long start = (long) index << PAGE_SHIFT;
+            base.read(start, page, 0, (int) Math.min(PAGE_SIZE, size() - start));
+        }
+        return page;
+    }
+
+    @Override
+    void readUnallocated(long address, byte[] dest, int offset, int length) {
+        if (baseHidden) {
+            super.readUnallocated(address, dest, offset, length);
+        } else {
+            base.read(address, dest, offset, length);
+        }
+    }
+
+    @Override
+    void readPage(byte[] page, int pageOffset, byte[] dest, int offset, int length) {
+        System.arraycopy(page, pageOffset, dest, offset, length);
+    }
+
+    @Override
+    void writePage(byte[] page, int pageOffset, byte[] src, int offset, int length) {
+        System.arraycopy(src, offset, page, pageOffset, length);
+    }
+}
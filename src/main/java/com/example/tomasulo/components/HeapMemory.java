@@ -0,0 +1,24 @@
+package com.example.tomasulo.components;
+
+/** Sparse main memory in Java heap arrays, one per page. */
+public class HeapMemory extends PagedMemory<byte[]> {
+
+    public HeapMemory(long size) {
+        super(size);
+    }
+
+    @Override
+    byte[] newPage(int index) {
+        return new byte[PAGE_SIZE];
+    }
+
+    @Override
+    void readPage(byte[] page, int pageOffset, byte[] dest, int offset, int length) {
+        System.arraycopy(page, pageOffset, dest, offset, length);
+    }
+
+    @Override
+    void writePage(byte[] page, int pageOffset, byte[] src, int offset, int length) {
+        System.arraycopy(src, offset, page, pageOffset, length);
+    }
+}
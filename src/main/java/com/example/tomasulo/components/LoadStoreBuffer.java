@@ -4,12 +4,35 @@ import com.example.tomasulo.core.Instruction;
 import com.example.tomasulo.utils.Constants;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
 
+/**
+ * Pending loads and stores, in the order they entered the buffer.
+ *
+ * Besides the list, entries are indexed by station name, by the 8-byte
+ * blocks their address covers once it is known, and by issue cycle while it
+ * is not. A clash check then only looks at entries in the blocks it touches
+ * plus the oldest unresolved entry, instead of scanning the whole buffer.
+ * The indices follow changes made through the buffer's methods; an entry's
+ * address, size, type and issue cycle must not be set directly once it has
+ * been added.
+ */
 public class LoadStoreBuffer {
+    private static final int BLOCK_SHIFT = 3; // Index granularity: 8 bytes, the widest access
+    private static final int NONE = Integer.MIN_VALUE;
+
     private List<LoadStoreEntry> entries;
     private int maxSize;
+    private final Map<String, LoadStoreEntry> byStation = new HashMap<>();
+    private final Map<Integer, List<LoadStoreEntry>> byBlock = new HashMap<>(); // Entries with a known address
+    // Entries whose address is unknown, as issue cycle -> count
+    private final TreeMap<Integer, Integer> unresolvedStores = new TreeMap<>();
+    private final TreeMap<Integer, Integer> unresolvedOthers = new TreeMap<>(); // Loads, or untyped entries
+    private int unresolvedStoreCount;
     
     public LoadStoreBuffer(int maxSize) {
         this.maxSize = maxSize;
@@ -46,14 +69,13 @@ public class LoadStoreBuffer {
                 break;
         }
         
-        entries.add(entry);
+        add(entry);
     }
 
     public LoadStoreEntry updateLoadAddress(String stationName, int address) {
         LoadStoreEntry entry = getEntryByStation(stationName);
         if (entry != null) {
-            entry.setAddress(address);
-            entry.setAddressValid(true);
+            resolve(entry, address);
         }
         return entry;
     }
@@ -61,9 +83,8 @@ public class LoadStoreBuffer {
     public LoadStoreEntry updateStoreAddressAndValue(String stationName, int address, double value) {
         LoadStoreEntry entry = getEntryByStation(stationName);
         if (entry != null) {
-            entry.setAddress(address);
             entry.setValue(value);
-            entry.setAddressValid(true);
+            resolve(entry, address);
         }
         return entry;
     }
@@ -82,7 +103,7 @@ public class LoadStoreBuffer {
         entry.setIssueCycle(instruction.getIssueCycle());
         entry.setSize(getSizeForInstruction(instruction));
         entry.setCompleted(false);
-        entries.add(entry);
+        add(entry);
         return entry;
     }
     
@@ -101,7 +122,7 @@ public class LoadStoreBuffer {
         entry.setIssueCycle(instruction.getIssueCycle());
         entry.setSize(getSizeForInstruction(instruction));
         entry.setCompleted(false);
-        entries.add(entry);
+        add(entry);
         return entry;
     }
     
@@ -109,17 +130,70 @@ public class LoadStoreBuffer {
         return entries;
     }
     
+    /** The oldest entry for {@code stationName}, or null. Constant time. */
     public LoadStoreEntry getEntryByStation(String stationName) {
-        for (LoadStoreEntry entry : entries) {
-            if (entry.getStationName().equals(stationName)) {
-                return entry;
+        return byStation.get(stationName);
+    }
+    
+    public void removeEntry(LoadStoreEntry entry) {
+        if (!entries.remove(entry)) {
+            return;
+        }
+        if (entry.isAddressValid()) {
+            unindexAddress(entry);
+        } else {
+            unindexUnresolved(entry);
+        }
+        if (byStation.get(entry.getStationName()) == entry) {
+            byStation.remove(entry.getStationName());
+            for (LoadStoreEntry other : entries) {
+                if (other.getStationName().equals(entry.getStationName())) {
+                    byStation.put(other.getStationName(), other);
+                    break;
+                }
             }
         }
-        return null;
     }
     
-    public void removeEntry(LoadStoreEntry entry) {
-        entries.remove(entry);
+    /** Entries whose address is not known yet and that are stores. */
+    public int getUnresolvedStoreCount() {
+        return unresolvedStoreCount;
+    }
+    
+    /**
+     * Whether a store issued before {@code issueCycle} still has an unknown
+     * address. Constant time when no store is unresolved.
+     */
+    public boolean hasOlderUnresolvedStore(int issueCycle) {
+        return hasUnresolved(unresolvedStores, issueCycle - 1, NONE);
+    }
+    
+    /**
+     * Whether a store issued before {@code issueCycle} that {@code matching}
+     * accepts still has an unknown address. Scans the buffer only if some
+     * older store is unresolved.
+     */
+    public boolean hasOlderUnresolvedStore(int issueCycle, Predicate<LoadStoreEntry> matching) {
+        if (!hasOlderUnresolvedStore(issueCycle)) {
+            return false;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            LoadStoreEntry entry = entries.get(i);
+            if (entry.getType() == LoadStoreType.STORE && !entry.isAddressValid()
+                    && entry.getIssueCycle() < issueCycle && matching.test(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /** Unresolved stores issued before {@code issueCycle}. */
+    public int countOlderUnresolvedStores(int issueCycle) {
+        int count = 0;
+        for (int n : unresolvedStores.headMap(issueCycle, false).values()) {
+            count += n;
+        }
+        return count;
     }
     
     /**
@@ -131,51 +205,21 @@ public class LoadStoreBuffer {
      * @return true if a clash exists, false otherwise
      */
     public boolean hasAddressClash(int address, int size, LoadStoreEntry excludeEntry, LoadStoreType type) {
-        for (LoadStoreEntry entry : entries) {
-            if (entry == excludeEntry) {
-                continue;
-            }
-            
-            // Only check against EARLIER instructions (lower issue cycle)
-            // Or if issue cycle is same (program order), we assume entry order in list reflects program order
-            if (entry.getIssueCycle() > excludeEntry.getIssueCycle()) {
-                continue;
-            }
-
-            // Ignore entries that have already completed (no longer impose hazards)
-            if (entry.isCompleted()) {
-                continue;
-            }
-            
-            // Check if addresses overlap
-            if (!entry.isAddressValid()) {
-                // If address is unknown, we must assume a potential clash to be safe (conservative disambiguation)
-                // Especially if we are a STORE checking against unknown LOAD/STORE, or LOAD checking against unknown STORE
-                if (type == LoadStoreType.STORE) {
-                    return true; // Store must wait for all earlier instructions to resolve address
-                } else {
-                    // We are a LOAD
-                    if (entry.getType() == LoadStoreType.STORE) {
-                        return true; // Load must wait for earlier STORE to resolve address
-                    }
-                    // Load vs Load is fine even if address unknown (no hazard)
-                    continue;
-                }
-            }
-
-            int entryStart = entry.getAddress();
-            int entryEnd = entryStart + entry.getSize();
-            int checkStart = address;
-            int checkEnd = address + size;
-            
-            if ((checkStart >= entryStart && checkStart < entryEnd) ||
-                (checkEnd > entryStart && checkEnd <= entryEnd) ||
-                (checkStart <= entryStart && checkEnd >= entryEnd) ||
-                (entryStart >= checkStart && entryStart < checkEnd)) { // Cover case where entry is inside check
-                return true;
-            }
+        // Only EARLIER instructions (issue cycle not after ours) impose hazards
+        int latest = excludeEntry.getIssueCycle();
+        int excludedCycle = excludeEntry.isAddressValid() ? NONE : excludeEntry.getIssueCycle();
+        
+        // If an earlier address is unknown, we must assume a potential clash to be safe (conservative disambiguation):
+        // a store waits for every earlier load and store, a load only for earlier stores
+        if (hasUnresolved(unresolvedStores, latest,
+                excludeEntry.getType() == LoadStoreType.STORE ? excludedCycle : NONE)) {
+            return true;
         }
-        return false;
+        if (type == LoadStoreType.STORE && hasUnresolved(unresolvedOthers, latest,
+                excludeEntry.getType() != LoadStoreType.STORE ? excludedCycle : NONE)) {
+            return true;
+        }
+        return hasOverlap(address, size, excludeEntry, latest);
     }
     
     /**
@@ -191,46 +235,216 @@ public class LoadStoreBuffer {
      * @return true if an earlier incomplete memory instruction may clash, false otherwise
      */
     public boolean hasAddressClashAtIssue(int address, int size, LoadStoreType type, int issueCycle) {
-        for (LoadStoreEntry entry : entries) {
-            // Only check against EARLIER instructions (lower issue cycle)
-            if (entry.getIssueCycle() >= issueCycle) {
+        // Only check against EARLIER instructions (lower issue cycle)
+        int latest = issueCycle - 1;
+
+        // If an earlier instruction's address is unknown, be conservative:
+        // a STORE cannot pass any earlier unknown LOAD/STORE, a LOAD only an earlier unknown STORE
+        if (hasUnresolved(unresolvedStores, latest, NONE)) {
+            return true;
+        }
+        if (type == LoadStoreType.STORE && hasUnresolved(unresolvedOthers, latest, NONE)) {
+            return true;
+        }
+        return hasOverlap(address, size, null, latest);
+    }
+
+    /**
+     * The store a load of {@code size} bytes at {@code address} can take its
+     * value from instead of the cache: the youngest incomplete store issued no
+     * later than {@code latest} that overlaps the load, if it covers every byte
+     * of it. Null if there is no such store, if the youngest overlapping store
+     * only covers part of the load, or if any store issued by then still has
+     * an unknown address.
+     */
+    public LoadStoreEntry findForwardingStore(int address, int size, int latest) {
+        return findForwardingStore(address, size, latest, false);
+    }
+
+    /**
+     * Like {@link #findForwardingStore(int, int, int)}, but with
+     * {@code pastUnresolved} set, stores with an unknown address are ignored
+     * rather than ruling out forwarding. The store found is then only the
+     * right source if none of those turns out to overlap the load.
+     */
+    public LoadStoreEntry findForwardingStore(int address, int size, int latest, boolean pastUnresolved) {
+        if (!pastUnresolved && hasUnresolved(unresolvedStores, latest, NONE)) {
+            return null;
+        }
+        LoadStoreEntry youngest = null;
+        int lastBlock = (address + Math.max(size, 1) - 1) >> BLOCK_SHIFT;
+        for (int block = address >> BLOCK_SHIFT; block <= lastBlock; block++) {
+            List<LoadStoreEntry> candidates = byBlock.get(block);
+            if (candidates == null) {
                 continue;
             }
+            for (int i = 0; i < candidates.size(); i++) {
+                LoadStoreEntry entry = candidates.get(i);
+                if (entry.getType() == LoadStoreType.STORE && !entry.isCompleted()
+                        && entry.getIssueCycle() <= latest && overlaps(address, size, entry)
+                        && (youngest == null || entry.getIssueCycle() > youngest.getIssueCycle())) {
+                    youngest = entry;
+                }
+            }
+        }
+        if (youngest != null && youngest.getAddress() <= address
+                && address + size <= youngest.getAddress() + youngest.getSize()) {
+            return youngest;
+        }
+        return null;
+    }
 
-            // Ignore entries that have already completed (no longer impose hazards)
-            if (entry.isCompleted()) {
+    /**
+     * Whether an incomplete entry with a known address overlapping the access
+     * was issued no later than {@code latest}. Unlike {@link #hasAddressClash},
+     * entries whose address is still unknown are not counted.
+     *
+     * @param excludeEntry the entry doing the check, or null before it has one
+     */
+    public boolean hasKnownAddressClash(int address, int size, LoadStoreEntry excludeEntry, int latest) {
+        return hasOverlap(address, size, excludeEntry, latest);
+    }
+
+    /**
+     * Loads issued after {@code store} that overlap it and have already read
+     * their value, either from the cache or from a store older than this one:
+     * they read memory before the store wrote it and have to be replayed.
+     * Called once the store's address is known.
+     */
+    public List<LoadStoreEntry> findViolatedLoads(LoadStoreEntry store) {
+        List<LoadStoreEntry> violated = new ArrayList<>();
+        int lastBlock = lastBlockOf(store);
+        for (int block = store.getAddress() >> BLOCK_SHIFT; block <= lastBlock; block++) {
+            List<LoadStoreEntry> candidates = byBlock.get(block);
+            if (candidates == null) {
                 continue;
             }
+            for (int i = 0; i < candidates.size(); i++) {
+                LoadStoreEntry entry = candidates.get(i);
+                if (entry.getType() == LoadStoreType.LOAD && !entry.isCompleted() && entry.hasLoadValue()
+                        && entry.getIssueCycle() > store.getIssueCycle()
+                        && entry.getSourceIssueCycle() < store.getIssueCycle()
+                        && overlaps(store.getAddress(), store.getSize(), entry)
+                        && !violated.contains(entry)) {
+                    violated.add(entry);
+                }
+            }
+        }
+        return violated;
+    }
 
-            // If earlier instruction's address is unknown, be conservative
-            if (!entry.isAddressValid()) {
-                if (type == LoadStoreType.STORE) {
-                    // A STORE cannot pass any earlier unknown LOAD/STORE
-                    return true;
-                } else {
-                    // We are a LOAD: cannot pass an earlier STORE with unknown address
-                    if (entry.getType() == LoadStoreType.STORE) {
-                        return true;
-                    }
-                    // LOAD vs LOAD with unknown address is allowed
+    // Any incomplete entry with a known address overlapping the access and issued no later than latest
+    private boolean hasOverlap(int address, int size, LoadStoreEntry excludeEntry, int latest) {
+        int lastBlock = (address + Math.max(size, 1) - 1) >> BLOCK_SHIFT;
+        for (int block = address >> BLOCK_SHIFT; block <= lastBlock; block++) {
+            List<LoadStoreEntry> candidates = byBlock.get(block);
+            if (candidates == null) {
+                continue;
+            }
+            for (int i = 0; i < candidates.size(); i++) {
+                LoadStoreEntry entry = candidates.get(i);
+                // Ignore entries that have already completed (no longer impose hazards)
+                if (entry == excludeEntry || entry.getIssueCycle() > latest || entry.isCompleted()) {
                     continue;
                 }
+                if (overlaps(address, size, entry)) {
+                    return true;
+                }
             }
+        }
+        return false;
+    }
 
-            // Both addresses are known; check overlap
-            int entryStart = entry.getAddress();
-            int entryEnd = entryStart + entry.getSize();
-            int checkStart = address;
-            int checkEnd = address + size;
+    private static boolean overlaps(int address, int size, LoadStoreEntry entry) {
+        int entryStart = entry.getAddress();
+        int entryEnd = entryStart + entry.getSize();
+        int checkStart = address;
+        int checkEnd = address + size;
 
-            if ((checkStart >= entryStart && checkStart < entryEnd) ||
-                (checkEnd > entryStart && checkEnd <= entryEnd) ||
-                (checkStart <= entryStart && checkEnd >= entryEnd) ||
-                (entryStart >= checkStart && entryStart < checkEnd)) {
-                return true;
+        return (checkStart >= entryStart && checkStart < entryEnd) ||
+            (checkEnd > entryStart && checkEnd <= entryEnd) ||
+            (checkStart <= entryStart && checkEnd >= entryEnd) ||
+            (entryStart >= checkStart && entryStart < checkEnd); // Cover case where entry is inside check
+    }
+
+    /**
+     * Whether {@code unresolved} counts an entry issued no later than
+     * {@code latest}, not counting one entry issued at {@code excludedCycle}.
+     */
+    private static boolean hasUnresolved(TreeMap<Integer, Integer> unresolved, int latest, int excludedCycle) {
+        if (unresolved.isEmpty()) {
+            return false;
+        }
+        Map.Entry<Integer, Integer> oldest = unresolved.firstEntry();
+        if (oldest.getKey() > latest) {
+            return false;
+        }
+        if (oldest.getKey() == excludedCycle && oldest.getValue() == 1) {
+            Integer next = unresolved.higherKey(oldest.getKey());
+            return next != null && next <= latest;
+        }
+        return true;
+    }
+
+    private void add(LoadStoreEntry entry) {
+        entries.add(entry);
+        byStation.putIfAbsent(entry.getStationName(), entry);
+        if (entry.isAddressValid()) {
+            indexAddress(entry);
+        } else {
+            count(unresolvedOf(entry), entry.getIssueCycle(), 1);
+            if (entry.getType() == LoadStoreType.STORE) {
+                unresolvedStoreCount++;
             }
         }
-        return false;
+    }
+
+    private void resolve(LoadStoreEntry entry, int address) {
+        if (entry.isAddressValid()) {
+            unindexAddress(entry);
+        } else {
+            unindexUnresolved(entry);
+        }
+        entry.setAddress(address);
+        entry.setAddressValid(true);
+        indexAddress(entry);
+    }
+
+    private void unindexUnresolved(LoadStoreEntry entry) {
+        count(unresolvedOf(entry), entry.getIssueCycle(), -1);
+        if (entry.getType() == LoadStoreType.STORE) {
+            unresolvedStoreCount--;
+        }
+    }
+
+    private TreeMap<Integer, Integer> unresolvedOf(LoadStoreEntry entry) {
+        return entry.getType() == LoadStoreType.STORE ? unresolvedStores : unresolvedOthers;
+    }
+
+    private static void count(TreeMap<Integer, Integer> counts, int issueCycle, int delta) {
+        counts.merge(issueCycle, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private void indexAddress(LoadStoreEntry entry) {
+        int lastBlock = lastBlockOf(entry);
+        for (int block = entry.getAddress() >> BLOCK_SHIFT; block <= lastBlock; block++) {
+            byBlock.computeIfAbsent(block, b -> new ArrayList<>(2)).add(entry);
+        }
+    }
+
+    private void unindexAddress(LoadStoreEntry entry) {
+        int lastBlock = lastBlockOf(entry);
+        for (int block = entry.getAddress() >> BLOCK_SHIFT; block <= lastBlock; block++) {
+            List<LoadStoreEntry> bucket = byBlock.get(block);
+            bucket.remove(entry);
+            if (bucket.isEmpty()) {
+                byBlock.remove(block);
+            }
+        }
+    }
+
+    private static int lastBlockOf(LoadStoreEntry entry) {
+        return (entry.getAddress() + Math.max(entry.getSize(), 1) - 1) >> BLOCK_SHIFT;
     }
     
     private int getSizeForInstruction(Instruction inst) {
@@ -252,12 +466,17 @@ public class LoadStoreBuffer {
     
     public void reset() {
         entries.clear();
+        byStation.clear();
+        byBlock.clear();
+        unresolvedStores.clear();
+        unresolvedOthers.clear();
+        unresolvedStoreCount = 0;
     }
 
     public LoadStoreBuffer snapshot() {
         LoadStoreBuffer copy = new LoadStoreBuffer(this.maxSize);
         for (LoadStoreEntry entry : this.entries) {
-            copy.entries.add(entry.snapshot());
+            copy.add(entry.snapshot());
         }
         return copy;
     }
@@ -281,7 +500,9 @@ public class LoadStoreBuffer {
         private String stationName;
         private LoadStoreType type;
         private double value; // For stores
-        private byte[] loadData; // For loads
+        private long loadValue; // For loads: raw little-endian bytes from the cache
+        private boolean loaded;
+        private int sourceIssueCycle = -1; // For loads: issue cycle of the store that forwarded the value, -1 for the cache
         private int issueCycle;
         private int cyclesRemaining;
         private boolean ready;
@@ -351,6 +572,10 @@ public class LoadStoreBuffer {
             }
         }
         
+        public void decrementCycles(int cycles) {
+            cyclesRemaining = Math.max(0, cyclesRemaining - cycles);
+        }
+        
         public boolean isReady() {
             return ready;
         }
@@ -359,12 +584,32 @@ public class LoadStoreBuffer {
             this.ready = ready;
         }
         
-        public byte[] getLoadData() {
-            return loadData;
+        public boolean hasLoadValue() {
+            return loaded;
+        }
+        
+        public long getLoadValue() {
+            return loadValue;
         }
         
-        public void setLoadData(byte[] loadData) {
-            this.loadData = loadData;
+        public void setLoadValue(long loadValue) {
+            this.loadValue = loadValue;
+            this.loaded = true;
+        }
+
+        /** Drop the loaded value so the load reads again. */
+        public void clearLoadValue() {
+            this.loadValue = 0L;
+            this.loaded = false;
+            this.sourceIssueCycle = -1;
+        }
+
+        public int getSourceIssueCycle() {
+            return sourceIssueCycle;
+        }
+
+        public void setSourceIssueCycle(int sourceIssueCycle) {
+            this.sourceIssueCycle = sourceIssueCycle;
         }
 
         public int getSize() {
@@ -400,9 +645,9 @@ public class LoadStoreBuffer {
             copy.stationName = this.stationName;
             copy.type = this.type;
             copy.value = this.value;
-            if (this.loadData != null) {
-                copy.loadData = Arrays.copyOf(this.loadData, this.loadData.length);
-            }
+            copy.loadValue = this.loadValue;
+            copy.loaded = this.loaded;
+            copy.sourceIssueCycle = this.sourceIssueCycle;
             copy.issueCycle = this.issueCycle;
             copy.cyclesRemaining = this.cyclesRemaining;
             copy.ready = this.ready;
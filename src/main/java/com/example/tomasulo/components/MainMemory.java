@@ -0,0 +1,57 @@
+package com.example.tomasulo.components;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Byte-addressed backing store behind the last cache level. Every access must
+ * lie inside {@code [0, size())}; the cache clips accesses that run past the
+ * end before they get here.
+ *
+ * {@link HeapMemory} and {@link OffHeapMemory} are sparse: pages are allocated
+ * on their first write and untouched pages read as zero, so a large memory
+ * only costs what the program uses. {@link MappedMemory} maps a file, which
+ * loads and saves a memory image without copying it.
+ */
+public interface MainMemory extends Closeable {
+
+    /** Backends that need nothing but a size. */
+    enum Backend {
+        HEAP, OFF_HEAP
+    }
+
+    long size();
+
+    /** Copy {@code length} bytes at {@code address} into {@code dest} from {@code offset}. */
+    void read(long address, byte[] dest, int offset, int length);
+
+    /** Copy {@code length} bytes of {@code src} from {@code offset} to {@code address}. */
+    void write(long address, byte[] src, int offset, int length);
+
+    /** Set every byte to zero. */
+    void clear();
+
+    /**
+     * The lowest address at or after {@code address} that may hold a non-zero
+     * byte, or {@link #size()} if there is none, so callers can skip memory
+     * that was never written.
+     */
+    long nextTouched(long address);
+
+    /** Release the backing store. The default has nothing to release. */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /** @throws IllegalArgumentException if {@code size} is not positive or too large for the backend */
+    static MainMemory create(Backend backend, long size) {
+        switch (backend) {
+            case HEAP:
+                return new HeapMemory(size);
+            case OFF_HEAP:
+                return new OffHeapMemory(size);
+            default:
+                throw new IllegalArgumentException("Unknown memory backend: " + backend);
+        }
+    }
+}
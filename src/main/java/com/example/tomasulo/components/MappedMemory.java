@@ -0,0 +1,165 @@
+package com.example.tomasulo.components;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Main memory mapped read-write from a file, so an existing image is the
+ * initial memory contents and every write lands in the file without a
+ * separate load or save step. The file is mapped in segments so images larger
+ * than 2 GB work; a file that has to grow is extended sparsely.
+ *
+ * {@link #openReadOnly(Path)} maps an image that must not change instead: the
+ * file is opened for reading only and mapped read-only, so writes throw
+ * {@link java.nio.ReadOnlyBufferException}. A {@link CopyOnWriteMemory} over
+ * it gives a writable view.
+ *
+ * {@link #force()} writes pending changes to disk and {@link #close()} forces
+ * them and closes the file. The mapping itself is released by the garbage
+ * collector.
+ */
+public class MappedMemory implements MainMemory {
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT; // 1GB per MappedByteBuffer
+    private static final int CLEAR_CHUNK = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final boolean readOnly;
+    private final MappedByteBuffer[] segments;
+
+    /** Map an existing image at its current length. */
+    public MappedMemory(Path file) throws IOException {
+        this(file, 0);
+    }
+
+    /**
+     * Map {@code file}, creating it if needed and growing it to at least
+     * {@code minSize} bytes. Bytes the file did not have read as zero.
+     *
+     * @throws IOException if the file cannot be opened or mapped, or would be empty
+     */
+    public MappedMemory(Path file, long minSize) throws IOException {
+        this(file, minSize, false);
+    }
+
+    /**
+     * Map an existing image read-only at its current length. The file is
+     * never created, grown or written.
+     *
+     * @throws IOException if the file does not exist, cannot be mapped or is empty
+     */
+    public static MappedMemory openReadOnly(Path file) throws IOException {
+        return new MappedMemory(file, 0, true);
+    }
+
+    private MappedMemory(Path file, long minSize, boolean readOnly) throws IOException {
+        this.readOnly = readOnly;
+        channel = readOnly
+                ? FileChannel.open(file, StandardOpenOption.READ)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        try {
+            long length = channel.size();
+            if (length < minSize) {
+                // Writing the last byte leaves a hole before it on file systems that support them
+                channel.write(ByteBuffer.allocate(1), minSize - 1);
+                length = minSize;
+            }
+            if (length <= 0) {
+                throw new IOException(file + ": empty memory image");
+            }
+            size = length;
+            segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+            for (int s = 0; s < segments.length; s++) {
+                long start = (long) s << SEGMENT_SHIFT;
+                segments[s] = channel.map(mode, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /** True if opened with {@link #openReadOnly(Path)}. */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public void read(long address, byte[] dest, int offset, int length) {
+        checkRange(address, length);
+        while (length > 0) {
+            int segmentOffset = (int) (address & (SEGMENT_SIZE - 1));
+            int len = Math.min(length, SEGMENT_SIZE - segmentOffset);
+            segments[(int) (address >>> SEGMENT_SHIFT)].get(segmentOffset, dest, offset, len);
+            address += len;
+            offset += len;
+            length -= len;
+        }
+    }
+
+    @Override
+    public void write(long address, byte[] src, int offset, int length) {
+        checkRange(address, length);
+        while (length > 0) {
+            int segmentOffset = (int) (address & (SEGMENT_SIZE - 1));
+            int len = Math.min(length, SEGMENT_SIZE - segmentOffset);
+            segments[(int) (address >>> SEGMENT_SHIFT)].put(segmentOffset, src, offset, len);
+            address += len;
+            offset += len;
+            length -= len;
+        }
+    }
+
+    /** Zero the whole image; this writes every byte of the file. */
+    @Override
+    public void clear() {
+        byte[] zeros = new byte[CLEAR_CHUNK];
+        for (long address = 0; address < size; address += CLEAR_CHUNK) {
+            write(address, zeros, 0, (int) Math.min(CLEAR_CHUNK, size - address));
+        }
+    }
+
+    /** The mapping does not track which bytes were written, so nothing is skipped. */
+    @Override
+    public long nextTouched(long address) {
+        return Math.min(Math.max(address, 0), size);
+    }
+
+    /** Write pending changes to the file; a read-only image has none. */
+    public void force() {
+        if (readOnly) {
+            return;
+        }
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void checkRange(long address, int length) {
+        if (address < 0 || length < 0 || address > size - length) {
+            throw new IndexOutOfBoundsException("Memory access " + address + "+" + length
+                    + " outside 0.." + size);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.tomasulo.components;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Sparse main memory in native memory, one {@link MemorySegment} per page, so
+ * multi-gigabyte memories stay out of the Java heap.
+ *
+ * Pages are allocated from an {@link Arena} owned by this memory. {@link #clear()}
+ * frees every page at once by closing the arena and starting a new one, and
+ * {@link #close()} frees them for good; nothing waits for the garbage
+ * collector. The arena is shared, so several threads may read the memory (for
+ * example through {@link CopyOnWriteMemory} views), but it must not be cleared
+ * or closed while they do. Using the memory after {@link #close()} throws
+ * {@link IllegalStateException}.
+ */
+public class OffHeapMemory extends PagedMemory<MemorySegment> {
+    private Arena arena = Arena.ofShared();
+
+    public OffHeapMemory(long size) {
+        super(size);
+    }
+
+    /** Drops every page and frees their native memory. */
+    @Override
+    public void clear() {
+        if (allocatedPages() == 0) {
+            return;
+        }
+        Arena dropped = arena;
+        arena = Arena.ofShared();
+        super.clear();
+        dropped.close();
+    }
+
+    /** Frees every page; the memory cannot be used afterwards. */
+    @Override
+    public void close() {
+        if (arena.scope().isAlive()) {
+            super.clear();
+            arena.close();
+        }
+    }
+
+    @Override
+    MemorySegment newPage(int index) {
+        return arena.allocate(PAGE_SIZE); // zero-filled
+    }
+
+    @Override
+    void readPage(MemorySegment page, int pageOffset, byte[] dest, int offset, int length) {
+        MemorySegment.copy(page, ValueLayout.JAVA_BYTE, pageOffset, dest, offset, length);
+    }
+
+    @Override
+    void writePage(MemorySegment page, int pageOffset, byte[] src, int offset, int length) {
+        MemorySegment.copy(src, offset, page, ValueLayout.JAVA_BYTE, pageOffset, length);
+    }
+}
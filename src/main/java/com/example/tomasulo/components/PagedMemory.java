@@ -0,0 +1,120 @@
+package com.example.tomasulo.components;
+
+import java.util.Arrays;
+
+/**
+ * Sparse memory split into fixed-size pages that are allocated on their first
+ * write. Reads of a page that was never written return zeros without
+ * allocating it. Allocated pages are listed as well, so {@link #clear()}
+ * costs one step per allocated page rather than per page of memory.
+ *
+ * @param <P> storage for one page
+ */
+abstract class PagedMemory<P> implements MainMemory {
+    static final int PAGE_SHIFT = 16;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT; // 64KB
+
+    private final long size;
+    private final P[] pages;
+    private int[] allocated = new int[16]; // Indices of non-null pages
+    private int allocatedCount;
+
+    @SuppressWarnings("unchecked")
+    PagedMemory(long size) {
+        long pageCount = (size + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+        if (size <= 0 || pageCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Invalid memory size: " + size);
+        }
+        this.size = size;
+        this.pages = (P[]) new Object[(int) pageCount];
+    }
+
+    /** Storage for page {@code index}, created on its first write with the bytes it read as before. */
+    abstract P newPage(int index);
+
+    abstract void readPage(P page, int pageOffset, byte[] dest, int offset, int length);
+
+    abstract void writePage(P page, int pageOffset, byte[] src, int offset, int length);
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void read(long address, byte[] dest, int offset, int length) {
+        checkRange(address, length);
+        while (length > 0) {
+            int pageOffset = (int) (address & (PAGE_SIZE - 1));
+            int len = Math.min(length, PAGE_SIZE - pageOffset);
+            P page = pages[(int) (address >>> PAGE_SHIFT)];
+            if (page == null) {
+                readUnallocated(address, dest, offset, len);
+            } else {
+                readPage(page, pageOffset, dest, offset, len);
+            }
+            address += len;
+            offset += len;
+            length -= len;
+        }
+    }
+
+    @Override
+    public void write(long address, byte[] src, int offset, int length) {
+        checkRange(address, length);
+        while (length > 0) {
+            int pageOffset = (int) (address & (PAGE_SIZE - 1));
+            int len = Math.min(length, PAGE_SIZE - pageOffset);
+            int index = (int) (address >>> PAGE_SHIFT);
+            if (pages[index] == null) {
+                pages[index] = newPage(index);
+                if (allocatedCount == allocated.length) {
+                    allocated = Arrays.copyOf(allocated, allocatedCount * 2);
+                }
+                allocated[allocatedCount++] = index;
+            }
+            writePage(pages[index], pageOffset, src, offset, len);
+            address += len;
+            offset += len;
+            length -= len;
+        }
+    }
+
+    /** Drops every page; they are allocated again on their next write. */
+    @Override
+    public void clear() {
+        for (int i = 0; i < allocatedCount; i++) {
+            pages[allocated[i]] = null;
+        }
+        allocatedCount = 0;
+    }
+
+    /** Contents of bytes on pages that were never written: zeros. */
+    void readUnallocated(long address, byte[] dest, int offset, int length) {
+        Arrays.fill(dest, offset, offset + length, (byte) 0);
+    }
+
+    int allocatedPages() {
+        return allocatedCount;
+    }
+
+    @Override
+    public long nextTouched(long address) {
+        if (address >= size) {
+            return size;
+        }
+        for (int index = (int) (Math.max(address, 0) >>> PAGE_SHIFT); index < pages.length; index++) {
+            if (pages[index] != null) {
+                return Math.max(address, (long) index << PAGE_SHIFT);
+            }
+        }
+        return size;
+    }
+
+    private void checkRange(long address, int length) {
+        if (address < 0 || length < 0 || address > size - length) {
+            throw new IndexOutOfBoundsException("Memory access " + address + "+" + length
+                    + " outside 0.." + size);
+        }
+    }
+}
@@ -3,37 +3,73 @@ package com.example.tomasulo.components;
 import com.example.tomasulo.utils.Constants;
 import com.example.tomasulo.utils.RegisterType;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Integer and floating-point registers with Tomasulo tag tracking.
+ *
+ * Both register classes live in flat arrays indexed by a register index:
+ * R0..R31 map to 0..31 and F0..F31 map to 32..63. Instructions carry indices
+ * decoded once at parse time (see {@link #indexOf(String)}), so the simulator's
+ * hot paths never look at register names. The name-based methods remain for
+ * the GUI and for register preloading.
+ */
 public class RegisterFile {
-    private Map<String, Double> integerRegisters;
-    private Map<String, Double> fpRegisters;
-    private Map<String, String> integerTags; // Tag tracking for Tomasulo
-    private Map<String, String> fpTags;
+    public static final int FP_BASE = Constants.NUM_INTEGER_REGISTERS;
+    public static final int NUM_REGISTERS = Constants.NUM_INTEGER_REGISTERS + Constants.NUM_FP_REGISTERS;
+    /** Index returned for names that do not denote a register. */
+    public static final int INVALID_INDEX = -1;
+    
+    private final double[] values;
+    private final int[] tags; // Producer station id per register (Tag tracking for Tomasulo)
+    private final BitSet changed = new BitSet(NUM_REGISTERS); // Written since clearChanged()
     
     public RegisterFile() {
-        integerRegisters = new LinkedHashMap<>();
-        fpRegisters = new LinkedHashMap<>();
-        integerTags = new LinkedHashMap<>();
-        fpTags = new LinkedHashMap<>();
+        values = new double[NUM_REGISTERS];
+        tags = new int[NUM_REGISTERS];
         
         // Initialize all registers to 0 (user can set via GUI)
-        for (int i = 0; i < Constants.NUM_INTEGER_REGISTERS; i++) {
-            String regName = "R" + i;
-            integerRegisters.put(regName, 0.0);
-            integerTags.put(regName, null);
+        reset();
+    }
+    
+    /**
+     * Decode a register name ("R5", "F12") to its index in this register file.
+     *
+     * @return the register index, or {@link #INVALID_INDEX} if the name is not a register
+     */
+    public static int indexOf(String regName) {
+        if (regName == null) {
+            return INVALID_INDEX;
+        }
+        regName = regName.trim();
+        if (regName.length() < 2) {
+            return INVALID_INDEX;
         }
         
-        // Initialize all floating point registers to 0
-        for (int i = 0; i < Constants.NUM_FP_REGISTERS; i++) {
-            String regName = "F" + i;
-            fpRegisters.put(regName, 0.0);
-            fpTags.put(regName, null);
+        int number;
+        try {
+            number = Integer.parseInt(regName.substring(1));
+        } catch (NumberFormatException e) {
+            return INVALID_INDEX;
         }
         
-        // R0 is always 0
-        integerRegisters.put("R0", 0.0);
+        char prefix = regName.charAt(0);
+        if (prefix == 'R' && number >= 0 && number < Constants.NUM_INTEGER_REGISTERS) {
+            return number;
+        } else if (prefix == 'F' && number >= 0 && number < Constants.NUM_FP_REGISTERS) {
+            return FP_BASE + number;
+        }
+        return INVALID_INDEX;
+    }
+    
+    /**
+     * Inverse of {@link #indexOf(String)}.
+     */
+    public static String nameOf(int index) {
+        return index < FP_BASE ? "R" + index : "F" + (index - FP_BASE);
     }
     
     public RegisterType getRegisterType(String regName) {
@@ -45,89 +81,111 @@ public class RegisterFile {
         return null;
     }
     
-    public Double getValue(String regName) {
-        RegisterType type = getRegisterType(regName);
-        if (type == RegisterType.INTEGER) {
-            return integerRegisters.getOrDefault(regName, 0.0);
-        } else if (type == RegisterType.FLOATING_POINT) {
-            return fpRegisters.getOrDefault(regName, 0.0);
+    public double getValue(int index) {
+        if (index < 0 || index >= NUM_REGISTERS) {
+            return 0.0;
         }
-        return 0.0;
+        return values[index];
     }
     
-    public void setValue(String regName, Double value) {
-        RegisterType type = getRegisterType(regName);
-        if (type == RegisterType.INTEGER) {
-            if (!regName.equals("R0")) { // R0 is always 0
-                integerRegisters.put(regName, value);
-            }
-        } else if (type == RegisterType.FLOATING_POINT) {
-            fpRegisters.put(regName, value);
+    public void setValue(int index, double value) {
+        // R0 is always 0
+        if (index > 0 && index < NUM_REGISTERS) {
+            values[index] = value;
+            changed.set(index);
         }
     }
     
-    public String getTag(String regName) {
-        RegisterType type = getRegisterType(regName);
-        if (type == RegisterType.INTEGER) {
-            return integerTags.getOrDefault(regName, null);
-        } else if (type == RegisterType.FLOATING_POINT) {
-            return fpTags.getOrDefault(regName, null);
+    public int getTag(int index) {
+        if (index < 0 || index >= NUM_REGISTERS) {
+            return ReservationStation.NO_TAG;
         }
-        return null;
+        return tags[index];
     }
     
-    public void setTag(String regName, String tag) {
-        RegisterType type = getRegisterType(regName);
-        if (type == RegisterType.INTEGER) {
-            integerTags.put(regName, tag);
-        } else if (type == RegisterType.FLOATING_POINT) {
-            fpTags.put(regName, tag);
+    public void setTag(int index, int tag) {
+        if (index >= 0 && index < NUM_REGISTERS) {
+            tags[index] = tag;
+            changed.set(index);
         }
     }
     
+    public void clearTag(int index) {
+        setTag(index, ReservationStation.NO_TAG);
+    }
+    
+    public Double getValue(String regName) {
+        return getValue(indexOf(regName));
+    }
+    
+    public void setValue(String regName, Double value) {
+        setValue(indexOf(regName), value);
+    }
+    
+    public int getTag(String regName) {
+        return getTag(indexOf(regName));
+    }
+    
+    public void setTag(String regName, int tag) {
+        setTag(indexOf(regName), tag);
+    }
+    
     public void clearTag(String regName) {
-        setTag(regName, null);
+        clearTag(indexOf(regName));
     }
     
+    // Map views below are built on demand for display and debugging; they are
+    // snapshots and do not write through to the register file.
+    
     public Map<String, Double> getIntegerRegisters() {
-        return integerRegisters;
+        Map<String, Double> view = new LinkedHashMap<>();
+        for (int i = 0; i < Constants.NUM_INTEGER_REGISTERS; i++) {
+            view.put(nameOf(i), values[i]);
+        }
+        return view;
     }
     
     public Map<String, Double> getFpRegisters() {
-        return fpRegisters;
+        Map<String, Double> view = new LinkedHashMap<>();
+        for (int i = FP_BASE; i < NUM_REGISTERS; i++) {
+            view.put(nameOf(i), values[i]);
+        }
+        return view;
     }
     
-    public Map<String, String> getIntegerTags() {
-        return integerTags;
+    public Map<String, Integer> getIntegerTags() {
+        Map<String, Integer> view = new LinkedHashMap<>();
+        for (int i = 0; i < Constants.NUM_INTEGER_REGISTERS; i++) {
+            view.put(nameOf(i), tags[i]);
+        }
+        return view;
     }
     
-    public Map<String, String> getFpTags() {
-        return fpTags;
+    public Map<String, Integer> getFpTags() {
+        Map<String, Integer> view = new LinkedHashMap<>();
+        for (int i = FP_BASE; i < NUM_REGISTERS; i++) {
+            view.put(nameOf(i), tags[i]);
+        }
+        return view;
     }
     
     public void reset() {
-        // Reset all registers to 0 (user can initialize via GUI)
-        for (int i = 0; i < Constants.NUM_INTEGER_REGISTERS; i++) {
-            String regName = "R" + i;
-            integerRegisters.put(regName, 0.0);
-            integerTags.put(regName, null);
-        }
-        
-        for (int i = 0; i < Constants.NUM_FP_REGISTERS; i++) {
-            String regName = "F" + i;
-            fpRegisters.put(regName, 0.0);
-            fpTags.put(regName, null);
-        }
-        
-        // R0 is always 0
-        integerRegisters.put("R0", 0.0);
+        // Reset all registers to 0 (user can initialize via GUI); R0 is always 0
+        Arrays.fill(values, 0.0);
+        Arrays.fill(tags, ReservationStation.NO_TAG);
+        changed.set(0, NUM_REGISTERS);
+    }
+    
+    /** Indices of registers whose value or tag was set since the last {@link #clearChanged()}. */
+    public BitSet getChanged() {
+        return changed;
+    }
+    
+    public void clearChanged() {
+        changed.clear();
     }
     
     public void preloadRegister(String regName, Double value) {
         setValue(regName, value);
     }
 }
-
-
-
-
@@ -0,0 +1,206 @@
+package com.example.tomasulo.components;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Chooses which way of a full cache set to evict. State is kept per set in
+ * flat primitive arrays indexed by {@code set * ways + way}; the cache tells
+ * the policy about every hit and fill and only asks for a victim when no way
+ * in the set is invalid.
+ */
+public interface ReplacementPolicy {
+
+    enum Type {
+        LRU, PLRU, FIFO, RANDOM
+    }
+
+    void onHit(int set, int way);
+
+    void onFill(int set, int way);
+
+    /** The way to evict from {@code set}; every way in the set is valid. */
+    int victim(int set);
+
+    void reset();
+
+    /**
+     * @param seed only used by {@link Type#RANDOM}, which restarts from it on {@link #reset()}
+     * @throws IllegalArgumentException if {@link Type#PLRU} is asked for a way count that is not a power of two
+     */
+    static ReplacementPolicy create(Type type, int sets, int ways, long seed) {
+        switch (type) {
+            case LRU:
+                return new Lru(sets, ways);
+            case PLRU:
+                return new TreePlru(sets, ways);
+            case FIFO:
+                return new Fifo(sets, ways);
+            case RANDOM:
+                return new RandomVictim(ways, seed);
+            default:
+                throw new IllegalArgumentException("Unknown replacement policy: " + type);
+        }
+    }
+
+    /** Evicts the way with the oldest access stamp. */
+    final class Lru implements ReplacementPolicy {
+        private final int ways;
+        private final long[] lastUse;
+        private long clock;
+
+        Lru(int sets, int ways) {
+            this.ways = ways;
+            this.lastUse = new long[sets * ways];
+        }
+
+        @Override
+        public void onHit(int set, int way) {
+            lastUse[set * ways + way] = ++clock;
+        }
+
+        @Override
+        public void onFill(int set, int way) {
+            lastUse[set * ways + way] = ++clock;
+        }
+
+        @Override
+        public int victim(int set) {
+            int base = set * ways;
+            int oldest = 0;
+            for (int way = 1; way < ways; way++) {
+                if (lastUse[base + way] < lastUse[base + oldest]) {
+                    oldest = way;
+                }
+            }
+            return oldest;
+        }
+
+        @Override
+        public void reset() {
+            Arrays.fill(lastUse, 0);
+            clock = 0;
+        }
+    }
+
+    /**
+     * Binary-tree pseudo-LRU: {@code ways - 1} bits per set, each pointing
+     * toward the half that was used less recently.
+     */
+    final class TreePlru implements ReplacementPolicy {
+        private final int ways;
+        private final int levels;
+        private final boolean[] bits; // true: victim is in the upper half below this node
+
+        TreePlru(int sets, int ways) {
+            if (Integer.bitCount(ways) != 1) {
+                throw new IllegalArgumentException("Pseudo-LRU needs a power-of-two associativity: " + ways);
+            }
+            this.ways = ways;
+            this.levels = Integer.numberOfTrailingZeros(ways);
+            this.bits = new boolean[sets * Math.max(ways - 1, 1)];
+        }
+
+        @Override
+        public void onHit(int set, int way) {
+            touch(set, way);
+        }
+
+        @Override
+        public void onFill(int set, int way) {
+            touch(set, way);
+        }
+
+        @Override
+        public int victim(int set) {
+            int base = set * (ways - 1);
+            int node = 0;
+            int way = 0;
+            for (int level = 0; level < levels; level++) {
+                int upper = bits[base + node] ? 1 : 0;
+                way = (way << 1) | upper;
+                node = 2 * node + 1 + upper;
+            }
+            return way;
+        }
+
+        @Override
+        public void reset() {
+            Arrays.fill(bits, false);
+        }
+
+        // Point every node on the path to this way at the other half
+        private void touch(int set, int way) {
+            int base = set * (ways - 1);
+            int node = 0;
+            for (int level = levels - 1; level >= 0; level--) {
+                int upper = (way >> level) & 1;
+                bits[base + node] = upper == 0;
+                node = 2 * node + 1 + upper;
+            }
+        }
+    }
+
+    /** Evicts ways in the order they were filled; hits do not count. */
+    final class Fifo implements ReplacementPolicy {
+        private final int ways;
+        private final int[] next;
+
+        Fifo(int sets, int ways) {
+            this.ways = ways;
+            this.next = new int[sets];
+        }
+
+        @Override
+        public void onHit(int set, int way) {
+        }
+
+        @Override
+        public void onFill(int set, int way) {
+            if (way == next[set]) {
+                next[set] = (way + 1) % ways;
+            }
+        }
+
+        @Override
+        public int victim(int set) {
+            return next[set];
+        }
+
+        @Override
+        public void reset() {
+            Arrays.fill(next, 0);
+        }
+    }
+
+    /** Uniformly random victim from a fixed seed, so runs are repeatable. */
+    final class RandomVictim implements ReplacementPolicy {
+        private final int ways;
+        private final long seed;
+        private final Random random;
+
+        RandomVictim(int ways, long seed) {
+            this.ways = ways;
+            this.seed = seed;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public void onHit(int set, int way) {
+        }
+
+        @Override
+        public void onFill(int set, int way) {
+        }
+
+        @Override
+        public int victim(int set) {
+            return random.nextInt(ways);
+        }
+
+        @Override
+        public void reset() {
+            random.setSeed(seed);
+        }
+    }
+}
@@ -3,19 +3,40 @@ package com.example.tomasulo.components;
 import com.example.tomasulo.core.Instruction;
 import com.example.tomasulo.utils.InstructionType;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
 public class ReservationStation {
+    /** Tag value meaning "operand is ready / register has no pending producer". */
+    public static final int NO_TAG = -1;
+    
+    private final int id; // Dense index assigned by ReservationStationManager, used as the CDB tag
     private String name; // e.g., "Add1", "Mul1"
     private boolean busy;
     private InstructionType.InstructionCategory category;
     private String operation; // Instruction mnemonic
-    private String vj, vk; // Value of source operands
-    private String qj, qk; // Reservation station producing source operands
+    private double vj, vk; // Value of source operands
+    private boolean vjReady, vkReady; // Whether vj/vk hold a value yet
+    private int address; // Effective address for loads/stores
+    private boolean addressReady;
+    private int qj = NO_TAG, qk = NO_TAG; // Id of the reservation station producing source operands
     private String destination; // Destination register
     private Instruction instruction; // The instruction in this station
     private int cyclesRemaining; // Cycles left for execution
     private int issueCycle;
+    private boolean writeBackPending; // Execution ended, waiting for the CDB
+    // Stations waiting on this station's result, registered at issue and woken by the CDB broadcast
+    private final List<ReservationStation> dependents = new ArrayList<>();
+    
+    // Membership sets owned by ReservationStationManager, indexed by id and kept
+    // in sync by the setters below so each pipeline stage can skip idle stations
+    private BitSet busyStations;
+    private BitSet executingStations;
+    private BitSet writeBackPendingStations;
     
-    public ReservationStation(String name, InstructionType.InstructionCategory category) {
+    public ReservationStation(int id, String name, InstructionType.InstructionCategory category) {
+        this.id = id;
         this.name = name;
         this.category = category;
         this.busy = false;
@@ -23,7 +44,13 @@ public class ReservationStation {
     }
     
     public boolean isReady() {
-        return busy && (qj == null || qj.isEmpty()) && (qk == null || qk.isEmpty()) && cyclesRemaining == 0;
+        return busy && qj == NO_TAG && qk == NO_TAG && cyclesRemaining == 0;
+    }
+    
+    void attachStationSets(BitSet busyStations, BitSet executingStations, BitSet writeBackPendingStations) {
+        this.busyStations = busyStations;
+        this.executingStations = executingStations;
+        this.writeBackPendingStations = writeBackPendingStations;
     }
     
     public boolean isBusy() {
@@ -32,6 +59,24 @@ public class ReservationStation {
     
     public void setBusy(boolean busy) {
         this.busy = busy;
+        if (busyStations != null) {
+            busyStations.set(id, busy);
+        }
+    }
+    
+    public boolean isWriteBackPending() {
+        return writeBackPending;
+    }
+    
+    public void setWriteBackPending(boolean writeBackPending) {
+        this.writeBackPending = writeBackPending;
+        if (writeBackPendingStations != null) {
+            writeBackPendingStations.set(id, writeBackPending);
+        }
+    }
+    
+    public int getId() {
+        return id;
     }
     
     public String getName() {
@@ -50,35 +95,85 @@ public class ReservationStation {
         this.operation = operation;
     }
     
-    public String getVj() {
+    public double getVj() {
         return vj;
     }
     
-    public void setVj(String vj) {
+    public void setVj(double vj) {
         this.vj = vj;
+        this.vjReady = true;
+    }
+    
+    public boolean isVjReady() {
+        return vjReady;
     }
     
-    public String getVk() {
+    public double getVk() {
         return vk;
     }
     
-    public void setVk(String vk) {
+    public void setVk(double vk) {
         this.vk = vk;
+        this.vkReady = true;
+    }
+    
+    public boolean isVkReady() {
+        return vkReady;
     }
     
-    public String getQj() {
+    public int getAddress() {
+        return address;
+    }
+    
+    public void setAddress(int address) {
+        this.address = address;
+        this.addressReady = true;
+    }
+    
+    public boolean isAddressReady() {
+        return addressReady;
+    }
+    
+    /**
+     * Display form of Vj. Loads show their effective address here until the
+     * loaded value arrives, matching the classic Tomasulo table layout.
+     */
+    public String formatVj() {
+        if (vjReady) {
+            return String.valueOf(vj);
+        }
+        if (category == InstructionType.InstructionCategory.LOAD && addressReady) {
+            return String.valueOf(address);
+        }
+        return "";
+    }
+    
+    /**
+     * Display form of Vk. Stores show their effective address here.
+     */
+    public String formatVk() {
+        if (vkReady) {
+            return String.valueOf(vk);
+        }
+        if (category == InstructionType.InstructionCategory.STORE && addressReady) {
+            return String.valueOf(address);
+        }
+        return "";
+    }
+    
+    public int getQj() {
         return qj;
     }
     
-    public void setQj(String qj) {
+    public void setQj(int qj) {
         this.qj = qj;
     }
     
-    public String getQk() {
+    public int getQk() {
         return qk;
     }
     
-    public void setQk(String qk) {
+    public void setQk(int qk) {
         this.qk = qk;
     }
     
@@ -104,11 +199,24 @@ public class ReservationStation {
     
     public void setCyclesRemaining(int cyclesRemaining) {
         this.cyclesRemaining = cyclesRemaining;
+        updateExecuting();
     }
     
     public void decrementCycles() {
         if (cyclesRemaining > 0) {
             cyclesRemaining--;
+            updateExecuting();
+        }
+    }
+    
+    public void decrementCycles(int cycles) {
+        cyclesRemaining = Math.max(0, cyclesRemaining - cycles);
+        updateExecuting();
+    }
+    
+    private void updateExecuting() {
+        if (executingStations != null) {
+            executingStations.set(id, cyclesRemaining > 0);
         }
     }
     
@@ -116,21 +224,38 @@ public class ReservationStation {
         return issueCycle;
     }
     
+    public List<ReservationStation> getDependents() {
+        return dependents;
+    }
+    
+    public void addDependent(ReservationStation consumer) {
+        // A consumer waiting on us for both Qj and Qk registers twice in a row
+        if (dependents.isEmpty() || dependents.get(dependents.size() - 1) != consumer) {
+            dependents.add(consumer);
+        }
+    }
+    
     public void setIssueCycle(int issueCycle) {
         this.issueCycle = issueCycle;
     }
     
     public void clear() {
-        this.busy = false;
+        setBusy(false);
+        setWriteBackPending(false);
         this.operation = null;
-        this.vj = null;
-        this.vk = null;
-        this.qj = null;
-        this.qk = null;
+        this.vj = 0;
+        this.vk = 0;
+        this.vjReady = false;
+        this.vkReady = false;
+        this.address = 0;
+        this.addressReady = false;
+        this.qj = NO_TAG;
+        this.qk = NO_TAG;
         this.destination = null;
         this.instruction = null;
-        this.cyclesRemaining = 0;
+        setCyclesRemaining(0);
         this.issueCycle = -1;
+        this.dependents.clear();
     }
     
     @Override
@@ -138,8 +263,8 @@ public class ReservationStation {
         if (!busy) {
             return name + ": Empty";
         }
-        return String.format("%s: Op=%s, Vj=%s, Vk=%s, Qj=%s, Qk=%s, Dest=%s, Cycles=%d",
-                name, operation, vj, vk, qj, qk, destination, cyclesRemaining);
+        return String.format("%s: Op=%s, Vj=%s, Vk=%s, Qj=%d, Qk=%d, Dest=%s, Cycles=%d",
+                name, operation, formatVj(), formatVk(), qj, qk, destination, cyclesRemaining);
     }
 }
 
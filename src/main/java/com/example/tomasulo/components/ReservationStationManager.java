@@ -5,6 +5,9 @@ import com.example.tomasulo.utils.Constants;
 import com.example.tomasulo.utils.InstructionType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,6 +18,14 @@ public class ReservationStationManager {
     private List<ReservationStation> integerALUStations;
     private List<ReservationStation> loadStations;
     private List<ReservationStation> storeStations;
+    // All stations indexed by their tag id, rebuilt by initializeStations()
+    private ReservationStation[] stationsById;
+    private List<ReservationStation> allStationsView;
+    
+    // Stations by pipeline state, indexed by id and maintained by the stations themselves
+    private final BitSet busyStations = new BitSet();
+    private final BitSet executingStations = new BitSet(); // cyclesRemaining > 0
+    private final BitSet writeBackPendingStations = new BitSet();
     
     private Map<String, Integer> instructionLatencies;
     
@@ -44,23 +55,61 @@ public class ReservationStationManager {
         loadStations.clear();
         storeStations.clear();
         
+        // Ids are dense and follow the getAllStations() order
+        int id = 0;
         for (int i = 0; i < fpAddSub; i++) {
-            fpAddSubStations.add(new ReservationStation("Add" + (i + 1), InstructionType.InstructionCategory.FP_ADD_SUB));
+            fpAddSubStations.add(new ReservationStation(id++, "Add" + (i + 1), InstructionType.InstructionCategory.FP_ADD_SUB));
         }
         for (int i = 0; i < fpMulDiv; i++) {
-            fpMulDivStations.add(new ReservationStation("Mult" + (i + 1), InstructionType.InstructionCategory.FP_MUL_DIV));
+            fpMulDivStations.add(new ReservationStation(id++, "Mult" + (i + 1), InstructionType.InstructionCategory.FP_MUL_DIV));
         }
         for (int i = 0; i < integerALU; i++) {
-            integerALUStations.add(new ReservationStation("Int" + (i + 1), InstructionType.InstructionCategory.INTEGER_ALU));
+            integerALUStations.add(new ReservationStation(id++, "Int" + (i + 1), InstructionType.InstructionCategory.INTEGER_ALU));
         }
         for (int i = 0; i < load; i++) {
-            loadStations.add(new ReservationStation("Load" + (i + 1), InstructionType.InstructionCategory.LOAD));
+            loadStations.add(new ReservationStation(id++, "Load" + (i + 1), InstructionType.InstructionCategory.LOAD));
         }
         for (int i = 0; i < store; i++) {
-            storeStations.add(new ReservationStation("Store" + (i + 1), InstructionType.InstructionCategory.STORE));
+            storeStations.add(new ReservationStation(id++, "Store" + (i + 1), InstructionType.InstructionCategory.STORE));
+        }
+        
+        List<ReservationStation> all = new ArrayList<>();
+        all.addAll(fpAddSubStations);
+        all.addAll(fpMulDivStations);
+        all.addAll(integerALUStations);
+        all.addAll(loadStations);
+        all.addAll(storeStations);
+        stationsById = all.toArray(new ReservationStation[0]);
+        allStationsView = Collections.unmodifiableList(Arrays.asList(stationsById));
+        
+        busyStations.clear();
+        executingStations.clear();
+        writeBackPendingStations.clear();
+        for (ReservationStation rs : stationsById) {
+            rs.attachStationSets(busyStations, executingStations, writeBackPendingStations);
         }
     }
     
+    public ReservationStation getStation(int id) {
+        if (id >= 0 && id < stationsById.length) {
+            return stationsById[id];
+        }
+        return null;
+    }
+    
+    /**
+     * Resolve a tag id to its station name for display and logging.
+     * Returns an empty string for {@link ReservationStation#NO_TAG}.
+     */
+    public String getStationName(int id) {
+        ReservationStation rs = getStation(id);
+        return rs != null ? rs.getName() : "";
+    }
+    
+    public int getStationCount() {
+        return stationsById.length;
+    }
+    
     private void initializeDefaultLatencies() {
         for (InstructionType type : InstructionType.values()) {
             instructionLatencies.put(type.getMnemonic(), type.getDefaultLatency());
@@ -77,7 +126,8 @@ public class ReservationStationManager {
     
     public ReservationStation findAvailableStation(InstructionType type) {
         List<ReservationStation> stations = getStationsForType(type);
-        for (ReservationStation rs : stations) {
+        for (int i = 0; i < stations.size(); i++) {
+            ReservationStation rs = stations.get(i);
             if (!rs.isBusy()) {
                 return rs;
             }
@@ -99,34 +149,55 @@ public class ReservationStationManager {
             case STORE:
                 return storeStations;
             default:
-                return new ArrayList<>();
+                return Collections.emptyList();
         }
     }
     
+    /**
+     * All stations in id order. The returned list is a read-only view that is
+     * only replaced when {@link #initializeStations} runs.
+     */
     public List<ReservationStation> getAllStations() {
-        List<ReservationStation> all = new ArrayList<>();
-        all.addAll(fpAddSubStations);
-        all.addAll(fpMulDivStations);
-        all.addAll(integerALUStations);
-        all.addAll(loadStations);
-        all.addAll(storeStations);
-        return all;
+        return allStationsView;
     }
     
-    public List<ReservationStation> getReadyStations() {
-        List<ReservationStation> ready = new ArrayList<>();
-        for (ReservationStation rs : getAllStations()) {
-            if (rs.isReady()) {
-                ready.add(rs);
-            }
+    /** Ids of stations holding an instruction. Read-only; do not modify. */
+    public BitSet getBusyStations() {
+        return busyStations;
+    }
+    
+    /** Ids of stations with execution cycles left to count down. Read-only; do not modify. */
+    public BitSet getExecutingStations() {
+        return executingStations;
+    }
+    
+    /** Ids of stations whose execution ended and that wait to write back. Read-only; do not modify. */
+    public BitSet getWriteBackPendingStations() {
+        return writeBackPendingStations;
+    }
+    
+    /**
+     * Record that {@code consumer} waits on the result of station {@code producerId},
+     * so the broadcast in {@link #updateOperands} only visits actual waiters.
+     */
+    public void addDependent(int producerId, ReservationStation consumer) {
+        ReservationStation producer = getStation(producerId);
+        if (producer != null) {
+            producer.addDependent(consumer);
         }
-        return ready;
     }
     
-    public void updateOperands(String stationName, double value) {
-        for (ReservationStation rs : getAllStations()) {
-            if (rs.getQj() != null && rs.getQj().equals(stationName)) {
-                rs.setQj(null);
+    public void updateOperands(int stationId, double value) {
+        ReservationStation producer = getStation(stationId);
+        if (producer == null) {
+            return;
+        }
+        
+        List<ReservationStation> dependents = producer.getDependents();
+        for (int i = 0; i < dependents.size(); i++) {
+            ReservationStation rs = dependents.get(i);
+            if (rs.getQj() == stationId) {
+                rs.setQj(ReservationStation.NO_TAG);
                 
                 // For loads, Qj is the base register - calculate address
                 if (rs.getCategory() == InstructionType.InstructionCategory.LOAD) {
@@ -134,15 +205,15 @@ public class ReservationStationManager {
                     if (inst != null) {
                         double baseValue = value;
                         int address = (int) baseValue + inst.getImmediate();
-                        rs.setVj(String.valueOf(address));
+                        rs.setAddress(address);
                     }
                 } else {
                     // For stores and ALU, Qj is the source register - set value
-                    rs.setVj(String.valueOf(value));
+                    rs.setVj(value);
                 }
             }
-            if (rs.getQk() != null && rs.getQk().equals(stationName)) {
-                rs.setQk(null);
+            if (rs.getQk() == stationId) {
+                rs.setQk(ReservationStation.NO_TAG);
                 
                 // For stores, Qk is the base register - calculate address
                 if (rs.getCategory() == InstructionType.InstructionCategory.STORE) {
@@ -150,25 +221,40 @@ public class ReservationStationManager {
                     if (inst != null) {
                         double baseValue = value;
                         int address = (int) baseValue + inst.getImmediate();
-                        rs.setVk(String.valueOf(address));
+                        rs.setAddress(address);
                     }
                 } else {
                     // For ALU operations, Qk is the second source register - set value
-                    rs.setVk(String.valueOf(value));
+                    rs.setVk(value);
                 }
             }
         }
+        dependents.clear();
     }
     
     public void tick() {
         // Decrement cycles for executing instructions
-        for (ReservationStation rs : getAllStations()) {
-            if (rs.isBusy() && rs.getCyclesRemaining() > 0) {
+        for (int id = executingStations.nextSetBit(0); id >= 0; id = executingStations.nextSetBit(id + 1)) {
+            ReservationStation rs = stationsById[id];
+            if (rs.isBusy()) {
                 rs.decrementCycles();
             }
         }
     }
     
+    /**
+     * Advance executing instructions by several cycles at once.
+     * Used when the simulator skips cycles in which nothing but countdowns happen.
+     */
+    public void tick(int cycles) {
+        for (int id = executingStations.nextSetBit(0); id >= 0; id = executingStations.nextSetBit(id + 1)) {
+            ReservationStation rs = stationsById[id];
+            if (rs.isBusy()) {
+                rs.decrementCycles(cycles);
+            }
+        }
+    }
+    
     public void reset() {
         for (ReservationStation rs : getAllStations()) {
             rs.clear();
@@ -0,0 +1,74 @@
+package com.example.tomasulo.components;
+
+import java.util.Arrays;
+
+/**
+ * Memory dependence predictor in the style of store sets. Each load and store
+ * is mapped by its program index to a store set; a load is predicted to depend
+ * on an older store only if both are in the same set. Sets are only formed by
+ * {@link #recordViolation}, so until a load has been caught reading memory
+ * before an older store wrote it, it is predicted independent of every store.
+ *
+ * The table is direct-mapped, so instructions whose indices differ by a
+ * multiple of its size share an entry.
+ */
+public class StoreSetPredictor {
+    public static final int NO_SET = -1;
+
+    private final int[] sets;
+    private final int mask;
+    private int nextSet;
+
+    /** @param tableSize entries in the store set table, a power of two */
+    public StoreSetPredictor(int tableSize) {
+        if (tableSize <= 0 || Integer.bitCount(tableSize) != 1) {
+            throw new IllegalArgumentException("Store set table size must be a power of two: " + tableSize);
+        }
+        this.sets = new int[tableSize];
+        this.mask = tableSize - 1;
+        reset();
+    }
+
+    /** The store set of the instruction at {@code programIndex}, or {@link #NO_SET}. */
+    public int getSet(int programIndex) {
+        return sets[programIndex & mask];
+    }
+
+    /** Whether the load at {@code loadIndex} should wait for the store at {@code storeIndex}. */
+    public boolean predictsDependence(int loadIndex, int storeIndex) {
+        int set = getSet(loadIndex);
+        return set != NO_SET && set == getSet(storeIndex);
+    }
+
+    /**
+     * Put a load and the older store it read ahead of into one set. If both
+     * already have sets, the one with the lower number takes in the other
+     * instruction, so repeated violations converge on a single set.
+     */
+    public void recordViolation(int loadIndex, int storeIndex) {
+        int loadSet = getSet(loadIndex);
+        int storeSet = getSet(storeIndex);
+        int set;
+        if (loadSet == NO_SET && storeSet == NO_SET) {
+            set = nextSet++;
+        } else if (loadSet == NO_SET) {
+            set = storeSet;
+        } else if (storeSet == NO_SET) {
+            set = loadSet;
+        } else {
+            set = Math.min(loadSet, storeSet);
+        }
+        sets[loadIndex & mask] = set;
+        sets[storeIndex & mask] = set;
+    }
+
+    public int getTableSize() {
+        return sets.length;
+    }
+
+    /** Forget every set. */
+    public void reset() {
+        Arrays.fill(sets, NO_SET);
+        nextSet = 0;
+    }
+}
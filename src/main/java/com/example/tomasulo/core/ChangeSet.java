@@ -0,0 +1,86 @@
+package com.example.tomasulo.core;
+
+import java.util.BitSet;
+
+/**
+ * What the simulator changed since the last {@link TomasuloSimulator#drainChanges()},
+ * so views can patch the affected rows instead of rebuilding everything.
+ *
+ * Sets may over-report (a station that was busy is listed even if only its
+ * countdown moved) but never miss a change. After a reset, a new program or a
+ * station reconfiguration {@link #isFullRefresh()} is true and the other sets
+ * should be ignored.
+ */
+public class ChangeSet {
+    private final BitSet stations = new BitSet();    // reservation station ids
+    private final BitSet registers = new BitSet();   // register file indices
+    private final BitSet cacheBlocks = new BitSet(); // cache block indices
+    private int firstTraceRow = Integer.MAX_VALUE;
+    private boolean fullRefresh = true;
+
+    public BitSet getStations() {
+        return stations;
+    }
+
+    public BitSet getRegisters() {
+        return registers;
+    }
+
+    public BitSet getCacheBlocks() {
+        return cacheBlocks;
+    }
+
+    /**
+     * Trace rows from this index to the end of the trace may have changed or
+     * been added; {@link Integer#MAX_VALUE} if none did.
+     */
+    public int getFirstTraceRow() {
+        return firstTraceRow;
+    }
+
+    public boolean isFullRefresh() {
+        return fullRefresh;
+    }
+
+    public boolean isEmpty() {
+        return !fullRefresh && stations.isEmpty() && registers.isEmpty() && cacheBlocks.isEmpty()
+                && firstTraceRow == Integer.MAX_VALUE;
+    }
+
+    void markStations(BitSet ids) {
+        stations.or(ids);
+    }
+
+    void markRegisters(BitSet indices) {
+        registers.or(indices);
+    }
+
+    void markCacheBlocks(BitSet indices) {
+        cacheBlocks.or(indices);
+    }
+
+    void markTraceFrom(int row) {
+        firstTraceRow = Math.min(firstTraceRow, row);
+    }
+
+    void markFullRefresh() {
+        fullRefresh = true;
+    }
+
+    /** Fold {@code other} into this change set. */
+    public void merge(ChangeSet other) {
+        stations.or(other.stations);
+        registers.or(other.registers);
+        cacheBlocks.or(other.cacheBlocks);
+        firstTraceRow = Math.min(firstTraceRow, other.firstTraceRow);
+        fullRefresh |= other.fullRefresh;
+    }
+
+    void clear() {
+        stations.clear();
+        registers.clear();
+        cacheBlocks.clear();
+        firstTraceRow = Integer.MAX_VALUE;
+        fullRefresh = false;
+    }
+}
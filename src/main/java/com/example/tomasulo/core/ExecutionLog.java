@@ -0,0 +1,227 @@
+package com.example.tomasulo.core;
+
+import com.example.tomasulo.utils.InstructionType;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Execution events stored as parallel primitive arrays (cycle, kind, station
+ * id, trace index, values) and turned into text only when read through
+ * {@link #asStrings()}. Recording can be switched off entirely.
+ */
+public class ExecutionLog {
+    public enum Kind {
+        ISSUED,                // station
+        EXECUTION_STARTED,
+        EXECUTION_COMPLETED,
+        WRITE_BACK,            // value = result
+        STORE_COMPLETED,
+        LOAD_REPLAYED,
+        BRANCH_NULL_REGISTERS,
+        BRANCH_EVALUATED,      // value = src1 value, value2 = src2 value
+        BRANCH_COMPARED,       // value = src1 value, value2 = src2 value
+        BRANCH_UNKNOWN_TYPE,
+        BRANCH_TAKEN,
+        BRANCH_NOT_TAKEN,
+        BRANCH_TARGET_BY_OFFSET, // value = target index
+        BRANCH_TARGET_NOT_FOUND, // value = target address
+        BRANCH_JUMP,             // value = target address
+        BRANCH_FALL_THROUGH
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final InstructionTrace trace;
+    private IntFunction<String> stationNames = id -> "";
+    private boolean enabled = true;
+
+    private int size;
+    private int[] cycles = new int[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] stationIds = new int[INITIAL_CAPACITY];
+    private int[] traceIndices = new int[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private double[] values2 = new double[INITIAL_CAPACITY];
+
+    /**
+     * @param trace the dynamic trace that recorded trace indices refer to
+     */
+    public ExecutionLog(InstructionTrace trace) {
+        this.trace = trace;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Turn recording on or off. Events already recorded are kept. */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** Resolves station ids to display names when events are formatted. */
+    public void setStationNames(IntFunction<String> stationNames) {
+        this.stationNames = stationNames;
+    }
+
+    public void record(int cycle, Kind kind, int stationId, Instruction inst, double value, double value2) {
+        if (!enabled) {
+            return;
+        }
+        if (size == cycles.length) {
+            grow();
+        }
+        cycles[size] = cycle;
+        kinds[size] = (byte) kind.ordinal();
+        stationIds[size] = stationId;
+        traceIndices[size] = inst.getTraceIndex();
+        values[size] = value;
+        values2[size] = value2;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = cycles.length * 2;
+        cycles = Arrays.copyOf(cycles, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        stationIds = Arrays.copyOf(stationIds, capacity);
+        traceIndices = Arrays.copyOf(traceIndices, capacity);
+        values = Arrays.copyOf(values, capacity);
+        values2 = Arrays.copyOf(values2, capacity);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCycle(int index) {
+        return cycles[index];
+    }
+
+    public Kind getKind(int index) {
+        return KINDS[kinds[index]];
+    }
+
+    public int getStationId(int index) {
+        return stationIds[index];
+    }
+
+    public int getTraceIndex(int index) {
+        return traceIndices[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    public double getValue2(int index) {
+        return values2[index];
+    }
+
+    /**
+     * Read-only view that formats each event when it is accessed.
+     */
+    public List<String> asStrings() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return format(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Events whose instruction was evicted from the trace without a spill file
+     * are reported by kind and trace index only.
+     */
+    public String format(int index) {
+        if (!trace.isAvailable(traceIndices[index])) {
+            return "Cycle " + cycles[index] + ": " + KINDS[kinds[index]].name()
+                    + " (trace entry " + traceIndices[index] + ")";
+        }
+        Instruction inst = trace.get(traceIndices[index]);
+        double value = values[index];
+        double value2 = values2[index];
+        String message;
+        switch (KINDS[kinds[index]]) {
+            case ISSUED:
+                message = "Issued " + inst + " to " + stationNames.apply(stationIds[index]);
+                break;
+            case EXECUTION_STARTED:
+                message = "Started execution of " + inst;
+                break;
+            case EXECUTION_COMPLETED:
+                message = "Completed execution of " + inst;
+                break;
+            case WRITE_BACK:
+                message = "Write-back result " + value + " for " + inst + " to " + inst.getDestRegister();
+                break;
+            case STORE_COMPLETED:
+                message = "Store completed for " + inst;
+                break;
+            case LOAD_REPLAYED:
+                message = "Memory order violation: replaying " + inst;
+                break;
+            case BRANCH_NULL_REGISTERS:
+                message = "ERROR: Branch has null register names: src1=" + inst.getSrcRegister1()
+                        + ", src2=" + inst.getSrcRegister2();
+                break;
+            case BRANCH_EVALUATED: {
+                String src1 = inst.getSrcRegister1().trim();
+                String src2 = inst.getSrcRegister2().trim();
+                message = "Branch evaluation at write-back: " + inst
+                        + " | Register names: src1='" + src1 + "' src2='" + src2 + "'"
+                        + " | Reading from register file: " + src1 + "=" + value + ", " + src2 + "=" + value2;
+                break;
+            }
+            case BRANCH_COMPARED: {
+                int comparison = Double.compare(value, value2);
+                boolean taken = inst.getType() == InstructionType.BEQ ? comparison == 0 : comparison != 0;
+                message = inst.getType().getMnemonic() + " comparison: Double.compare(" + value + ", " + value2
+                        + ") = " + comparison + " -> " + taken;
+                break;
+            }
+            case BRANCH_UNKNOWN_TYPE:
+                message = "ERROR: Unknown branch type: " + inst.getType();
+                break;
+            case BRANCH_TAKEN:
+                message = "Branch condition result: " + inst.getType().getMnemonic() + " -> TAKEN";
+                break;
+            case BRANCH_NOT_TAKEN:
+                message = "Branch condition result: " + inst.getType().getMnemonic() + " -> NOT TAKEN";
+                break;
+            case BRANCH_TARGET_BY_OFFSET:
+                message = "Branch target resolved by offset calculation: index " + (int) value;
+                break;
+            case BRANCH_TARGET_NOT_FOUND:
+                message = "ERROR: Branch target address " + (int) value + " not found - instruction pointer not updated";
+                break;
+            case BRANCH_JUMP:
+                message = "Branch TAKEN: jumping to address " + (int) value;
+                break;
+            case BRANCH_FALL_THROUGH:
+                message = "Branch NOT TAKEN: continuing to next instruction";
+                break;
+            default:
+                message = KINDS[kinds[index]].name();
+                break;
+        }
+        return "Cycle " + cycles[index] + ": " + message;
+    }
+}
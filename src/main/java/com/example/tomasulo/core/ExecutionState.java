@@ -7,18 +7,18 @@ public class ExecutionState {
     private int currentCycle;
     private int instructionPointer;
     private List<Instruction> instructions; // The static program
-    private List<Instruction> trace; // The dynamic execution trace
-    private List<String> executionLog; // Text log of execution events
+    private final InstructionTrace trace; // The dynamic execution trace
+    private final ExecutionLog executionLog; // Execution events, formatted on read
     private Instruction currentInstruction;
     private boolean simulationComplete;
-    private String statusMessage;
+    private String statusMessage; // Null while the status is just the current cycle
     
     public ExecutionState() {
         this.currentCycle = 0;
         this.instructionPointer = 0;
         this.instructions = new ArrayList<>();
-        this.trace = new ArrayList<>();
-        this.executionLog = new ArrayList<>();
+        this.trace = new InstructionTrace();
+        this.executionLog = new ExecutionLog(trace);
         this.simulationComplete = false;
         this.statusMessage = "";
     }
@@ -53,13 +53,15 @@ public class ExecutionState {
     
     public void setInstructions(List<Instruction> instructions) {
         this.instructions = instructions;
+        this.trace.setProgram(instructions);
     }
     
-    public List<Instruction> getTrace() {
+    public InstructionTrace getTrace() {
         return trace;
     }
     
     public void addToTrace(Instruction instruction) {
+        instruction.setTraceIndex(trace.size());
         this.trace.add(instruction);
     }
     
@@ -68,12 +70,16 @@ public class ExecutionState {
         this.executionLog.clear();
     }
 
+    /**
+     * The execution log as text. Lines are formatted from the recorded events
+     * each time they are read.
+     */
     public List<String> getExecutionLog() {
-        return executionLog;
+        return executionLog.asStrings();
     }
 
-    public void addLogMessage(String message) {
-        this.executionLog.add(message);
+    public ExecutionLog getLog() {
+        return executionLog;
     }
     
     public Instruction getCurrentInstruction() {
@@ -93,11 +99,16 @@ public class ExecutionState {
     }
     
     public String getStatusMessage() {
-        return statusMessage;
+        return statusMessage != null ? statusMessage : "Cycle " + currentCycle;
     }
     
     public void setStatusMessage(String statusMessage) {
         this.statusMessage = statusMessage;
     }
+    
+    /** Report the current cycle as the status. The text is built when the status is read. */
+    public void showCycleStatus() {
+        this.statusMessage = null;
+    }
 }
 
@@ -1,5 +1,6 @@
 package com.example.tomasulo.core;
 
+import com.example.tomasulo.components.RegisterFile;
 import com.example.tomasulo.utils.InstructionType;
 
 public class Instruction {
@@ -10,7 +11,14 @@ public class Instruction {
     private int immediate; // For loads/stores and ADDI/SUBI
     private String baseRegister; // For loads/stores
     private String branchTarget; // For branches (label or address)
+    // Register indices decoded from the names above when they are set (see RegisterFile.indexOf)
+    private int destIndex = RegisterFile.INVALID_INDEX;
+    private int src1Index = RegisterFile.INVALID_INDEX;
+    private int src2Index = RegisterFile.INVALID_INDEX;
+    private int baseIndex = RegisterFile.INVALID_INDEX;
     private int instructionAddress; // PC address of this instruction
+    private int programIndex = -1; // Position in the static program, set when loaded
+    private int traceIndex = -1; // Position in the execution trace, set when traced
     private int issueCycle = -1;
     private int executeStartCycle = -1;
     private int executeEndCycle = -1;
@@ -36,6 +44,11 @@ public class Instruction {
     
     public void setDestRegister(String destRegister) {
         this.destRegister = destRegister;
+        this.destIndex = RegisterFile.indexOf(destRegister);
+    }
+    
+    public int getDestIndex() {
+        return destIndex;
     }
     
     public String getSrcRegister1() {
@@ -44,6 +57,11 @@ public class Instruction {
     
     public void setSrcRegister1(String srcRegister1) {
         this.srcRegister1 = srcRegister1;
+        this.src1Index = RegisterFile.indexOf(srcRegister1);
+    }
+    
+    public int getSrc1Index() {
+        return src1Index;
     }
     
     public String getSrcRegister2() {
@@ -52,6 +70,11 @@ public class Instruction {
     
     public void setSrcRegister2(String srcRegister2) {
         this.srcRegister2 = srcRegister2;
+        this.src2Index = RegisterFile.indexOf(srcRegister2);
+    }
+    
+    public int getSrc2Index() {
+        return src2Index;
     }
     
     public int getImmediate() {
@@ -68,6 +91,11 @@ public class Instruction {
     
     public void setBaseRegister(String baseRegister) {
         this.baseRegister = baseRegister;
+        this.baseIndex = RegisterFile.indexOf(baseRegister);
+    }
+    
+    public int getBaseIndex() {
+        return baseIndex;
     }
     
     public String getBranchTarget() {
@@ -86,6 +114,22 @@ public class Instruction {
         this.instructionAddress = instructionAddress;
     }
     
+    public int getProgramIndex() {
+        return programIndex;
+    }
+    
+    public void setProgramIndex(int programIndex) {
+        this.programIndex = programIndex;
+    }
+    
+    public int getTraceIndex() {
+        return traceIndex;
+    }
+    
+    public void setTraceIndex(int traceIndex) {
+        this.traceIndex = traceIndex;
+    }
+    
     public int getIssueCycle() {
         return issueCycle;
     }
@@ -134,7 +178,12 @@ public class Instruction {
         copy.immediate = this.immediate;
         copy.baseRegister = this.baseRegister;
         copy.branchTarget = this.branchTarget;
+        copy.destIndex = this.destIndex;
+        copy.src1Index = this.src1Index;
+        copy.src2Index = this.src2Index;
+        copy.baseIndex = this.baseIndex;
         copy.instructionAddress = this.instructionAddress;
+        copy.programIndex = this.programIndex;
         // Do not copy cycle information or completion status
         return copy;
     }
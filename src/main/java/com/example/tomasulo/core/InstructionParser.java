@@ -1,6 +1,7 @@
 package com.example.tomasulo.core;
 
 import com.example.tomasulo.utils.InstructionType;
+import com.example.tomasulo.utils.Trace;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -41,38 +42,52 @@ public class InstructionParser {
             }
         }
         
-        System.out.println("\n========== PARSING FILE: " + filename + " ==========");
-        System.out.println("Raw lines from file:");
-        for (int i = 0; i < lines.size(); i++) {
-            System.out.println("  [" + i + "] '" + lines.get(i) + "'");
+        if (Trace.ENABLED) {
+            Trace.println("\n========== PARSING FILE: " + filename + " ==========");
+            Trace.println("Raw lines from file:");
+            for (int i = 0; i < lines.size(); i++) {
+                Trace.println("  [" + i + "] '" + lines.get(i) + "'");
+            }
         }
         
         // First pass: identify labels
         int address = 0;
-        System.out.println("\nFirst pass: Identifying labels...");
+        if (Trace.ENABLED) {
+            Trace.println("\nFirst pass: Identifying labels...");
+        }
         for (String line : lines) {
             int labelIndex = line.indexOf(':');
             if (labelIndex != -1) {
                 String label = line.substring(0, labelIndex).trim();
                 labelMap.put(label, address);
-                System.out.println("  Found label: '" + label + "' at address " + address);
+                if (Trace.ENABLED) {
+                    Trace.println("  Found label: '" + label + "' at address " + address);
+                }
                 
                 String remaining = line.substring(labelIndex + 1).trim();
                 if (!remaining.isEmpty()) {
                     address += 4;
-                    System.out.println("    Instruction after label: '" + remaining + "' -> address incremented to " + address);
-                } else {
-                    System.out.println("    No instruction after label (label-only line)");
+                    if (Trace.ENABLED) {
+                        Trace.println("    Instruction after label: '" + remaining + "' -> address incremented to " + address);
+                    }
+                } else if (Trace.ENABLED) {
+                    Trace.println("    No instruction after label (label-only line)");
                 }
             } else {
-                System.out.println("  No label in line: '" + line + "' -> address " + address);
+                if (Trace.ENABLED) {
+                    Trace.println("  No label in line: '" + line + "' -> address " + address);
+                }
                 address += 4;
             }
         }
-        System.out.println("Label map after first pass: " + labelMap);
+        if (Trace.ENABLED) {
+            Trace.println("Label map after first pass: " + labelMap);
+        }
         
         // Second pass: parse instructions
-        System.out.println("\nSecond pass: Parsing instructions...");
+        if (Trace.ENABLED) {
+            Trace.println("\nSecond pass: Parsing instructions...");
+        }
         address = 0;
         for (String line : lines) {
             int labelIndex = line.indexOf(':');
@@ -80,33 +95,43 @@ public class InstructionParser {
             
             if (labelIndex != -1) {
                 instructionPart = line.substring(labelIndex + 1).trim();
-                System.out.println("  Line with label: '" + line + "' -> instruction part: '" + instructionPart + "'");
-            } else {
-                System.out.println("  Line without label: '" + line + "'");
+                if (Trace.ENABLED) {
+                    Trace.println("  Line with label: '" + line + "' -> instruction part: '" + instructionPart + "'");
+                }
+            } else if (Trace.ENABLED) {
+                Trace.println("  Line without label: '" + line + "'");
             }
             
             if (instructionPart.isEmpty()) {
-                System.out.println("    Skipping (empty instruction part)");
+                if (Trace.ENABLED) {
+                    Trace.println("    Skipping (empty instruction part)");
+                }
                 continue;
             }
             
             Instruction inst = parseInstruction(instructionPart, address);
             if (inst != null) {
-                System.out.println("    Parsed instruction at address " + address + ": " + inst.toString());
+                if (Trace.ENABLED) {
+                    Trace.println("    Parsed instruction at address " + address + ": " + inst.toString());
+                }
                 instructions.add(inst);
                 address += 4;
-            } else {
-                System.out.println("    Failed to parse instruction");
+            } else if (Trace.ENABLED) {
+                Trace.println("    Failed to parse instruction");
             }
         }
         
-        System.out.println("\nTotal instructions parsed: " + instructions.size());
-        System.out.println("Label map before resolving branch targets: " + labelMap);
+        if (Trace.ENABLED) {
+            Trace.println("\nTotal instructions parsed: " + instructions.size());
+            Trace.println("Label map before resolving branch targets: " + labelMap);
+        }
         
         // Resolve branch targets
         resolveBranchTargets(instructions);
         
-        System.out.println("==========================================\n");
+        if (Trace.ENABLED) {
+            Trace.println("==========================================\n");
+        }
         return instructions;
     }
     
@@ -126,40 +151,54 @@ public class InstructionParser {
             }
         }
         
-        System.out.println("\n========== PARSING TEXT ==========");
-        System.out.println("Raw lines from text:");
-        for (int i = 0; i < cleanLines.size(); i++) {
-            System.out.println("  [" + i + "] '" + cleanLines.get(i) + "'");
+        if (Trace.ENABLED) {
+            Trace.println("\n========== PARSING TEXT ==========");
+            Trace.println("Raw lines from text:");
+            for (int i = 0; i < cleanLines.size(); i++) {
+                Trace.println("  [" + i + "] '" + cleanLines.get(i) + "'");
+            }
         }
         
         // First pass: identify labels
         labelMap.clear();
         int address = 0;
-        System.out.println("\nFirst pass: Identifying labels...");
+        if (Trace.ENABLED) {
+            Trace.println("\nFirst pass: Identifying labels...");
+        }
         for (String line : cleanLines) {
             int labelIndex = line.indexOf(':');
             if (labelIndex != -1) {
                 String label = line.substring(0, labelIndex).trim();
                 labelMap.put(label, address);
-                System.out.println("  Found label: '" + label + "' at address " + address);
+                if (Trace.ENABLED) {
+                    Trace.println("  Found label: '" + label + "' at address " + address);
+                }
                 
                 // Check if there's code after the label
                 String remaining = line.substring(labelIndex + 1).trim();
                 if (!remaining.isEmpty()) {
                     address += 4;
-                    System.out.println("    Instruction after label: '" + remaining + "' -> address incremented to " + address);
-                } else {
-                    System.out.println("    No instruction after label (label-only line)");
+                    if (Trace.ENABLED) {
+                        Trace.println("    Instruction after label: '" + remaining + "' -> address incremented to " + address);
+                    }
+                } else if (Trace.ENABLED) {
+                    Trace.println("    No instruction after label (label-only line)");
                 }
             } else {
-                System.out.println("  No label in line: '" + line + "' -> address " + address);
+                if (Trace.ENABLED) {
+                    Trace.println("  No label in line: '" + line + "' -> address " + address);
+                }
                 address += 4;
             }
         }
-        System.out.println("Label map after first pass: " + labelMap);
+        if (Trace.ENABLED) {
+            Trace.println("Label map after first pass: " + labelMap);
+        }
         
         // Second pass: parse instructions
-        System.out.println("\nSecond pass: Parsing instructions...");
+        if (Trace.ENABLED) {
+            Trace.println("\nSecond pass: Parsing instructions...");
+        }
         address = 0;
         for (String line : cleanLines) {
             int labelIndex = line.indexOf(':');
@@ -167,33 +206,43 @@ public class InstructionParser {
             
             if (labelIndex != -1) {
                 instructionPart = line.substring(labelIndex + 1).trim();
-                System.out.println("  Line with label: '" + line + "' -> instruction part: '" + instructionPart + "'");
-            } else {
-                System.out.println("  Line without label: '" + line + "'");
+                if (Trace.ENABLED) {
+                    Trace.println("  Line with label: '" + line + "' -> instruction part: '" + instructionPart + "'");
+                }
+            } else if (Trace.ENABLED) {
+                Trace.println("  Line without label: '" + line + "'");
             }
             
             if (instructionPart.isEmpty()) {
-                System.out.println("    Skipping (empty instruction part - label-only line)");
+                if (Trace.ENABLED) {
+                    Trace.println("    Skipping (empty instruction part - label-only line)");
+                }
                 continue; // Label only line
             }
             
             Instruction inst = parseInstruction(instructionPart, address);
             if (inst != null) {
-                System.out.println("    Parsed instruction at address " + address + ": " + inst.toString());
+                if (Trace.ENABLED) {
+                    Trace.println("    Parsed instruction at address " + address + ": " + inst.toString());
+                }
                 instructions.add(inst);
                 address += 4;
-            } else {
-                System.out.println("    Failed to parse instruction");
+            } else if (Trace.ENABLED) {
+                Trace.println("    Failed to parse instruction");
             }
         }
         
-        System.out.println("\nTotal instructions parsed: " + instructions.size());
-        System.out.println("Label map before resolving branch targets: " + labelMap);
+        if (Trace.ENABLED) {
+            Trace.println("\nTotal instructions parsed: " + instructions.size());
+            Trace.println("Label map before resolving branch targets: " + labelMap);
+        }
         
         // Resolve branch targets
         resolveBranchTargets(instructions);
         
-        System.out.println("==========================================\n");
+        if (Trace.ENABLED) {
+            Trace.println("==========================================\n");
+        }
         return instructions;
     }
     
@@ -298,19 +347,25 @@ public class InstructionParser {
     }
     
     private void resolveBranchTargets(List<Instruction> instructions) {
-        System.out.println("\n========== RESOLVING BRANCH TARGETS ==========");
-        System.out.println("Label map contents: " + labelMap);
+        if (Trace.ENABLED) {
+            Trace.println("\n========== RESOLVING BRANCH TARGETS ==========");
+            Trace.println("Label map contents: " + labelMap);
+        }
         
         for (Instruction inst : instructions) {
             if (inst.getType().getCategory() == InstructionType.InstructionCategory.BRANCH) {
                 String target = inst.getBranchTarget();
-                System.out.println("\nBranch instruction: " + inst.toString() + 
-                    " at address " + inst.getInstructionAddress());
-                System.out.println("  Target string: '" + target + "'");
+                if (Trace.ENABLED) {
+                    Trace.println("\nBranch instruction: " + inst.toString() + 
+                        " at address " + inst.getInstructionAddress());
+                    Trace.println("  Target string: '" + target + "'");
+                }
                 
                 if (target != null) {
                     target = target.trim(); // Trim whitespace
-                    System.out.println("  Trimmed target: '" + target + "'");
+                    if (Trace.ENABLED) {
+                        Trace.println("  Trimmed target: '" + target + "'");
+                    }
                 }
                 
                 if (labelMap.containsKey(target)) {
@@ -319,25 +374,35 @@ public class InstructionParser {
                     int currentAddress = inst.getInstructionAddress();
                     int offset = (targetAddress - currentAddress - 4) / 4; // Branch offset in instructions
                     inst.setImmediate(offset);
-                    System.out.println("  ✓ Label found! targetAddress=" + targetAddress + 
-                        ", currentAddress=" + currentAddress + ", offset=" + offset);
+                    if (Trace.ENABLED) {
+                        Trace.println("  ✓ Label found! targetAddress=" + targetAddress + 
+                            ", currentAddress=" + currentAddress + ", offset=" + offset);
+                    }
                 } else {
-                    System.out.println("  ✗ Label '" + target + "' NOT FOUND in labelMap!");
-                    System.out.println("  Available labels: " + labelMap.keySet());
+                    if (Trace.ENABLED) {
+                        Trace.println("  ✗ Label '" + target + "' NOT FOUND in labelMap!");
+                        Trace.println("  Available labels: " + labelMap.keySet());
+                    }
                     // Try to parse as immediate offset
                     try {
                         int parsedOffset = Integer.parseInt(target);
                         inst.setImmediate(parsedOffset);
-                        System.out.println("  Parsed as immediate offset: " + parsedOffset);
+                        if (Trace.ENABLED) {
+                            Trace.println("  Parsed as immediate offset: " + parsedOffset);
+                        }
                     } catch (NumberFormatException e) {
-                        System.out.println("  ERROR: Could not parse as offset, keeping as label string");
+                        if (Trace.ENABLED) {
+                            Trace.println("  ERROR: Could not parse as offset, keeping as label string");
+                        }
                         // Keep as label string - but this will cause issues!
                         inst.setImmediate(0); // Default to 0 if label not found
                     }
                 }
             }
         }
-        System.out.println("==========================================\n");
+        if (Trace.ENABLED) {
+            Trace.println("==========================================\n");
+        }
     }
     
     public Map<String, Integer> getLabelMap() {
@@ -0,0 +1,354 @@
+package com.example.tomasulo.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The dynamic execution trace. Indices are absolute (an instruction's
+ * {@link Instruction#getTraceIndex()}) and {@link #size()} counts every
+ * instruction ever traced.
+ *
+ * By default every entry is kept in memory. With {@link #setRetention(int)}
+ * only the newest entries stay in a ring buffer; older completed entries are
+ * evicted, and if a spill file is set they are first written to it as fixed
+ * size records and rebuilt from the program on {@link #get(int)}. Entries still
+ * in flight are never evicted, so the buffer holds at most the retention limit
+ * plus the instructions in the pipeline.
+ *
+ * A {@link TraceFileWriter} set with {@link #setRecorder} receives every entry
+ * once it and all entries before it have completed, in trace order.
+ */
+public class InstructionTrace extends AbstractList<Instruction> implements Closeable {
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    // programIndex, issue, execute start, execute end, write-back
+    private static final int RECORD_BYTES = 5 * Integer.BYTES;
+    private static final int SPILL_BATCH_RECORDS = 1024;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private List<Instruction> program = Collections.emptyList();
+    private int retention = UNBOUNDED;
+
+    private Instruction[] ring = new Instruction[INITIAL_CAPACITY];
+    private int head;          // ring slot of the oldest retained entry
+    private int retained;      // entries currently in the ring
+    private int firstRetained; // absolute index of the oldest retained entry
+
+    private FileChannel spill;
+    private Path spillFile;
+    private final ByteBuffer spillBuffer =
+            ByteBuffer.allocateDirect(SPILL_BATCH_RECORDS * RECORD_BYTES);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(RECORD_BYTES);
+    private int firstSpilled; // absolute index of the first record in the spill file
+    private int spilled;      // records written or buffered
+
+    private TraceFileWriter recorder;
+    private int recorded; // absolute index of the next entry to record
+    private int firstIncomplete; // no entry before this index is incomplete
+
+    /** The static program that spilled records refer to by program index. */
+    public void setProgram(List<Instruction> program) {
+        this.program = program;
+    }
+
+    public int getRetention() {
+        return retention;
+    }
+
+    /**
+     * Keep at most {@code retention} completed entries in memory, or
+     * {@link #UNBOUNDED} to keep everything.
+     */
+    public void setRetention(int retention) {
+        if (retention < 0) {
+            throw new IllegalArgumentException("Negative trace retention: " + retention);
+        }
+        this.retention = retention;
+        evict();
+    }
+
+    public Path getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * Write evicted entries to {@code file}, replacing its contents, or pass
+     * null to drop them. Entries evicted before this call are not recoverable:
+     * the file starts at the oldest entry still held in memory.
+     */
+    public void setSpillFile(Path file) throws IOException {
+        closeSpill();
+        firstSpilled = firstRetained;
+        if (file != null) {
+            spill = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            spillFile = file;
+        }
+    }
+
+    public TraceFileWriter getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Record completed entries to {@code writer}, or stop recording with null.
+     * Recording starts at the oldest entry still held in memory; the writer is
+     * closed by {@link #close()}.
+     */
+    public void setRecorder(TraceFileWriter writer) {
+        this.recorder = writer;
+        this.recorded = firstRetained;
+        record();
+    }
+
+    /** Absolute index of the oldest entry held in memory. */
+    public int getFirstRetainedIndex() {
+        return firstRetained;
+    }
+
+    /** True if {@link #get(int)} can return entry {@code index}. */
+    public boolean isAvailable(int index) {
+        if (index < 0 || index >= size()) {
+            return false;
+        }
+        return index >= firstRetained || isSpilled(index);
+    }
+
+    /** Completed entries, counting every evicted entry (only completed ones are evicted). */
+    public int countCompleted() {
+        int done = firstRetained;
+        for (int i = 0; i < retained; i++) {
+            if (slot(i).isCompleted()) {
+                done++;
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Absolute index of the oldest entry that has not completed, or
+     * {@link #size()} if all have. Amortized constant time: entries never
+     * become incomplete again.
+     */
+    public int getFirstIncompleteIndex() {
+        if (firstIncomplete < firstRetained) {
+            firstIncomplete = firstRetained; // evicted entries are all completed
+        }
+        while (firstIncomplete < size() && slot(firstIncomplete - firstRetained).isCompleted()) {
+            firstIncomplete++;
+        }
+        return firstIncomplete;
+    }
+
+    /** True if every traced instruction has completed. */
+    public boolean allCompleted() {
+        return getFirstIncompleteIndex() == size();
+    }
+
+    @Override
+    public int size() {
+        return firstRetained + retained;
+    }
+
+    @Override
+    public Instruction get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (index >= firstRetained) {
+            return slot(index - firstRetained);
+        }
+        if (!isSpilled(index)) {
+            throw new IndexOutOfBoundsException("Trace entry " + index + " was evicted");
+        }
+        try {
+            return readSpilled(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean add(Instruction instruction) {
+        if (retained == ring.length) {
+            Instruction[] grown = new Instruction[ring.length * 2];
+            for (int i = 0; i < retained; i++) {
+                grown[i] = slot(i);
+            }
+            ring = grown;
+            head = 0;
+        }
+        ring[(head + retained) % ring.length] = instruction;
+        retained++;
+        modCount++;
+        evict();
+        return true;
+    }
+
+    /**
+     * Only the newest entry can be removed (an issue that did not go through).
+     */
+    @Override
+    public Instruction remove(int index) {
+        if (retained == 0 || index != size() - 1) {
+            throw new UnsupportedOperationException("Only the newest trace entry can be removed");
+        }
+        int slot = (head + retained - 1) % ring.length;
+        Instruction removed = ring[slot];
+        ring[slot] = null;
+        retained--;
+        firstIncomplete = Math.min(firstIncomplete, size());
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(ring, null);
+        head = 0;
+        retained = 0;
+        firstRetained = 0;
+        firstSpilled = 0;
+        spilled = 0;
+        spillBuffer.clear();
+        recorded = 0;
+        firstIncomplete = 0;
+        modCount++;
+        try {
+            if (spill != null) {
+                spill.truncate(0);
+            }
+            if (recorder != null) {
+                recorder.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Record any remaining completed entries, then close the recorder and the
+     * spill file, if any. The in-memory entries stay readable.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (recorder != null) {
+                record();
+                recorder.close();
+            }
+        } finally {
+            recorder = null;
+            closeSpill();
+        }
+    }
+
+    private void closeSpill() throws IOException {
+        if (spill != null) {
+            try {
+                flushSpill();
+                spill.close();
+            } finally {
+                spill = null;
+                spillFile = null;
+            }
+        }
+        // Records are only readable while the file is open
+        spilled = 0;
+        spillBuffer.clear();
+    }
+
+    // Evicted entry that can be read back from the spill file
+    private boolean isSpilled(int index) {
+        return spill != null && index >= firstSpilled && index - firstSpilled < spilled;
+    }
+
+    private Instruction slot(int offset) {
+        return ring[(head + offset) % ring.length];
+    }
+
+    private void evict() {
+        record();
+        while (retained > retention && slot(0).isCompleted()) {
+            Instruction oldest = ring[head];
+            if (spill != null) {
+                try {
+                    writeSpilled(oldest);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            retained--;
+            firstRetained++;
+        }
+    }
+
+    private void record() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            while (recorded < size() && slot(recorded - firstRetained).isCompleted()) {
+                recorder.append(slot(recorded - firstRetained));
+                recorded++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeSpilled(Instruction inst) throws IOException {
+        if (!spillBuffer.hasRemaining()) {
+            flushSpill();
+        }
+        spillBuffer.putInt(inst.getProgramIndex());
+        spillBuffer.putInt(inst.getIssueCycle());
+        spillBuffer.putInt(inst.getExecuteStartCycle());
+        spillBuffer.putInt(inst.getExecuteEndCycle());
+        spillBuffer.putInt(inst.getWriteBackCycle());
+        spilled++;
+    }
+
+    private void flushSpill() throws IOException {
+        if (spill == null || spillBuffer.position() == 0) {
+            return;
+        }
+        spillBuffer.flip();
+        long position = (long) (spilled - spillBuffer.remaining() / RECORD_BYTES) * RECORD_BYTES;
+        while (spillBuffer.hasRemaining()) {
+            position += spill.write(spillBuffer, position);
+        }
+        spillBuffer.clear();
+    }
+
+    private Instruction readSpilled(int index) throws IOException {
+        flushSpill();
+        readBuffer.clear();
+        long position = (long) (index - firstSpilled) * RECORD_BYTES;
+        while (readBuffer.hasRemaining()) {
+            if (spill.read(readBuffer, position + readBuffer.position()) < 0) {
+                throw new IOException("Trace spill file truncated at entry " + index);
+            }
+        }
+        readBuffer.flip();
+        Instruction inst = program.get(readBuffer.getInt()).copy();
+        inst.setIssueCycle(readBuffer.getInt());
+        inst.setExecuteStartCycle(readBuffer.getInt());
+        inst.setExecuteEndCycle(readBuffer.getInt());
+        inst.setWriteBackCycle(readBuffer.getInt());
+        inst.setCompleted(true);
+        inst.setTraceIndex(index);
+        return inst;
+    }
+}
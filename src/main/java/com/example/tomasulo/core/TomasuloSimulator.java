@@ -4,14 +4,16 @@ import com.example.tomasulo.components.*;
 import com.example.tomasulo.utils.Constants;
 import com.example.tomasulo.utils.InstructionType;
 import com.example.tomasulo.utils.RegisterType;
+import com.example.tomasulo.utils.StallReason;
+import com.example.tomasulo.utils.Trace;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class TomasuloSimulator {
     private ReservationStationManager rsManager;
@@ -22,25 +24,65 @@ public class TomasuloSimulator {
     private ExecutionState state;
     private List<Instruction> instructions;
     private boolean branchStall;
+    // Set whenever a stage does something other than count down latencies;
+    // a cycle that leaves it false can be fast-forwarded by advanceToNextEvent()
+    private boolean progressThisCycle;
     
-    // Track simultaneous completion groups
-    // Key: executeEndCycle, Value: Set of reservation station names that finished at that cycle
-    private Map<Integer, Set<String>> simultaneousCompletionGroups;
-    // Track which reservation station names belong to incomplete simultaneous completion groups
-    private Set<String> incompleteGroupMembers;
-    // Track which RS names wrote back this cycle and are in incomplete groups
-    private Set<String> incompleteGroupMembersWrittenBackThisCycle;
-    // Track which dependent RS names should wait because their dependency is in an incomplete group
-    private Set<String> dependentRSWaitingForIncompleteGroup;
+    // Track simultaneous completion groups (all sets are keyed by reservation station id)
+    // Key: executeEndCycle, Value: Set of reservation station ids that finished at that cycle
+    private Map<Integer, BitSet> simultaneousCompletionGroups;
+    // Track which reservation stations belong to incomplete simultaneous completion groups
+    private BitSet incompleteGroupMembers;
+    // Track which RS wrote back this cycle and are in incomplete groups
+    private BitSet incompleteGroupMembersWrittenBackThisCycle;
+    // Track which dependent RS should wait because their dependency is in an incomplete group
+    private BitSet dependentRSWaitingForIncompleteGroup;
+    
+    // Store-to-load forwarding: a load covered by an older in-flight store takes its value
+    private boolean storeForwarding = Constants.DEFAULT_STORE_FORWARDING;
+    private int forwardingLatency = Constants.DEFAULT_FORWARDING_LATENCY;
+    private long forwardedLoads;
+    
+    // Speculative disambiguation: a load passes older stores with unknown addresses unless the
+    // predictor ties it to one, and is replayed if such a store turns out to write its bytes
+    private boolean speculativeLoads = Constants.DEFAULT_SPECULATIVE_LOADS;
+    private StoreSetPredictor dependencePredictor = new StoreSetPredictor(Constants.DEFAULT_STORE_SET_TABLE_SIZE);
+    private long speculatedLoads;
+    private long orderViolations;
+    private long replayedLoads;
+    
+    // Stall cycles per StallReason ordinal, and the reasons seen in the current cycle
+    private final long[] stallCycles = new long[StallReason.values().length];
+    private final boolean[] stalledThisCycle = new boolean[StallReason.values().length];
+    
+    // Rows, stations, registers and cache blocks touched since the last drainChanges(),
+    // and the set it last returned; the two are swapped on each drain
+    private ChangeSet changes = new ChangeSet();
+    private ChangeSet drained = new ChangeSet();
+    
+    // Reused by writeBack() every cycle to avoid per-cycle allocation
+    private final List<ReservationStation> readyStations = new ArrayList<>();
+    private static final Comparator<ReservationStation> BY_ISSUE_CYCLE =
+            Comparator.comparingInt((ReservationStation rs) -> {
+                Instruction inst = rs.getInstruction();
+                return inst != null ? inst.getIssueCycle() : Integer.MAX_VALUE;
+            });
     
     public TomasuloSimulator() {
         this(Constants.DEFAULT_CACHE_SIZE, Constants.DEFAULT_BLOCK_SIZE);
     }
     
     public TomasuloSimulator(int cacheSize, int blockSize) {
+        this(cacheSize, blockSize, Constants.DEFAULT_CACHE_ASSOCIATIVITY, ReplacementPolicy.Type.LRU);
+    }
+    
+    /**
+     * @param associativity cache ways per set, or {@link Cache#FULLY_ASSOCIATIVE}
+     */
+    public TomasuloSimulator(int cacheSize, int blockSize, int associativity, ReplacementPolicy.Type policy) {
         rsManager = new ReservationStationManager();
         registerFile = new RegisterFile();
-        cache = new Cache(cacheSize, blockSize,
+        cache = new Cache(cacheSize, blockSize, associativity, policy,
                 Constants.DEFAULT_CACHE_HIT_LATENCY, Constants.DEFAULT_CACHE_MISS_PENALTY);
         loadStoreBuffer = new LoadStoreBuffer(Constants.DEFAULT_LOAD_STORE_BUFFER_SIZE);
         branchUnit = new BranchUnit();
@@ -48,11 +90,17 @@ public class TomasuloSimulator {
         instructions = new ArrayList<>();
         branchStall = false;
         simultaneousCompletionGroups = new HashMap<>();
-        incompleteGroupMembers = new HashSet<>();
+        incompleteGroupMembers = new BitSet();
+        incompleteGroupMembersWrittenBackThisCycle = new BitSet();
+        dependentRSWaitingForIncompleteGroup = new BitSet();
+        state.getLog().setStationNames(rsManager::getStationName);
     }
     
     public void loadInstructions(List<Instruction> insts) {
         this.instructions = new ArrayList<>(insts);
+        for (int i = 0; i < instructions.size(); i++) {
+            instructions.get(i).setProgramIndex(i);
+        }
         state.setInstructions(instructions);
         state.setInstructionPointer(0);
         state.setCurrentCycle(0);
@@ -70,11 +118,19 @@ public class TomasuloSimulator {
         state.clearTrace(); // Clear the trace
         state.setSimulationComplete(false);
         state.setStatusMessage("Ready");
+        changes.markFullRefresh();
         branchStall = false;
         simultaneousCompletionGroups.clear();
         incompleteGroupMembers.clear();
-        incompleteGroupMembersWrittenBackThisCycle = new HashSet<>();
-        dependentRSWaitingForIncompleteGroup = new HashSet<>();
+        incompleteGroupMembersWrittenBackThisCycle.clear();
+        dependentRSWaitingForIncompleteGroup.clear();
+        Arrays.fill(stallCycles, 0L);
+        Arrays.fill(stalledThisCycle, false);
+        forwardedLoads = 0;
+        speculatedLoads = 0;
+        orderViolations = 0;
+        replayedLoads = 0;
+        dependencePredictor.reset();
         
         // Reset program instructions (just in case)
         for (Instruction inst : instructions) {
@@ -92,7 +148,12 @@ public class TomasuloSimulator {
         }
         
         state.incrementCycle();
-        state.setStatusMessage("Cycle " + state.getCurrentCycle());
+        state.showCycleStatus();
+        progressThisCycle = false;
+        Arrays.fill(stalledThisCycle, false);
+        // Anything that changes this cycle is busy before it, busy after it or in flight
+        changes.markStations(rsManager.getBusyStations());
+        changes.markTraceFrom(state.getTrace().getFirstIncompleteIndex());
         
         // Clear the set of incomplete group members that wrote back this cycle
         // NOTE: Do NOT clear dependentRSWaitingForIncompleteGroup here; we keep
@@ -108,6 +169,8 @@ public class TomasuloSimulator {
         // The stall is cleared in write-back when the branch completes
         if (!branchStall) {
             issue();
+        } else if (state.getInstructionPointer() < instructions.size()) {
+            recordStall(StallReason.BRANCH);
         }
         
         // 3. Write-back stage (highest priority, but happens AFTER check to ensure cycle delay)
@@ -122,11 +185,140 @@ public class TomasuloSimulator {
         
         // 6. Check if simulation is complete
         checkCompletion();
+        changes.markStations(rsManager.getBusyStations());
+        
+        for (int i = 0; i < stalledThisCycle.length; i++) {
+            if (stalledThisCycle[i]) {
+                stallCycles[i]++;
+            }
+        }
+    }
+    
+    /**
+     * Advance to the next cycle in which something other than a latency
+     * countdown happens (an issue, an execution start or end, an address
+     * resolution or a write-back).
+     *
+     * A cycle in which no stage made progress will keep making no progress
+     * until the smallest running countdown expires, so those idle cycles are
+     * skipped in one jump instead of being stepped one at a time.
+     *
+     * @param maxCycle the simulation never advances past this cycle
+     * @return true if an event happened, false if the simulation completed,
+     *         hit {@code maxCycle} or is stalled with nothing left to count down
+     */
+    public boolean advanceToNextEvent(int maxCycle) {
+        while (!state.isSimulationComplete() && state.getCurrentCycle() < maxCycle) {
+            step();
+            if (progressThisCycle) {
+                return true;
+            }
+            
+            int idleCycles = getIdleCyclesAhead();
+            if (idleCycles < 0) {
+                // Nothing is counting down and nothing moved: no later cycle can differ
+                return false;
+            }
+            idleCycles = Math.min(idleCycles, maxCycle - state.getCurrentCycle());
+            if (idleCycles > 0) {
+                skipIdleCycles(idleCycles);
+            }
+        }
+        return false;
+    }
+    
+    public boolean advanceToNextEvent() {
+        return advanceToNextEvent(Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Run with cycle skipping until the simulation completes or {@code maxCycles}
+     * is reached. Produces the same final state as calling step() repeatedly.
+     *
+     * @return true if the simulation completed within the budget
+     */
+    public boolean runUntilComplete(int maxCycles) {
+        while (!state.isSimulationComplete() && state.getCurrentCycle() < maxCycles) {
+            if (!advanceToNextEvent(maxCycles) && !state.isSimulationComplete()
+                    && state.getCurrentCycle() < maxCycles) {
+                // Stalled with nothing counting down: every remaining cycle would be idle
+                state.setCurrentCycle(maxCycles);
+            }
+        }
+        return state.isSimulationComplete();
+    }
+    
+    public boolean runUntilComplete() {
+        return runUntilComplete(Constants.DEFAULT_MAX_CYCLES);
+    }
+    
+    /**
+     * Number of upcoming cycles guaranteed to be idle after a cycle without
+     * progress: every countdown reaches zero one cycle after the smallest one
+     * minus one, and only a zero countdown can trigger a stage.
+     * Returns -1 if nothing is counting down.
+     */
+    private int getIdleCyclesAhead() {
+        int minRemaining = Integer.MAX_VALUE;
+        BitSet executing = rsManager.getExecutingStations();
+        for (int id = executing.nextSetBit(0); id >= 0; id = executing.nextSetBit(id + 1)) {
+            ReservationStation rs = rsManager.getStation(id);
+            if (rs.isBusy()) {
+                minRemaining = Math.min(minRemaining, rs.getCyclesRemaining());
+            }
+        }
+        List<LoadStoreBuffer.LoadStoreEntry> entries = loadStoreBuffer.getEntries();
+        for (int i = 0; i < entries.size(); i++) {
+            LoadStoreBuffer.LoadStoreEntry entry = entries.get(i);
+            if (entry.getCyclesRemaining() > 0) {
+                minRemaining = Math.min(minRemaining, entry.getCyclesRemaining());
+            }
+        }
+        if (minRemaining == Integer.MAX_VALUE) {
+            return -1;
+        }
+        return minRemaining - 1;
+    }
+    
+    private void skipIdleCycles(int cycles) {
+        state.setCurrentCycle(state.getCurrentCycle() + cycles);
+        // Skipped cycles repeat the idle cycle just stepped, including its stalls
+        for (int i = 0; i < stalledThisCycle.length; i++) {
+            if (stalledThisCycle[i]) {
+                stallCycles[i] += cycles;
+            }
+        }
+        rsManager.tick(cycles);
+        changes.markStations(rsManager.getBusyStations());
+        List<LoadStoreBuffer.LoadStoreEntry> entries = loadStoreBuffer.getEntries();
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).decrementCycles(cycles);
+        }
+    }
+    
+    /**
+     * Everything changed since the previous call, for incremental display
+     * updates. Register and cache changes made outside step() (e.g. preloading)
+     * are included. The returned set is reused: it is only valid until the
+     * next call.
+     */
+    public ChangeSet drainChanges() {
+        changes.markRegisters(registerFile.getChanged());
+        registerFile.clearChanged();
+        changes.markCacheBlocks(cache.getChangedBlocks());
+        cache.clearChangedBlocks();
+        ChangeSet result = changes;
+        changes = drained;
+        changes.clear();
+        drained = result;
+        return result;
     }
     
     private void tickLoadStoreBuffer() {
         // Decrement cycles for load/store buffer entries
-        for (LoadStoreBuffer.LoadStoreEntry entry : loadStoreBuffer.getEntries()) {
+        List<LoadStoreBuffer.LoadStoreEntry> entries = loadStoreBuffer.getEntries();
+        for (int i = 0; i < entries.size(); i++) {
+            LoadStoreBuffer.LoadStoreEntry entry = entries.get(i);
             if (entry.getCyclesRemaining() > 0) {
                 entry.decrementCycles();
             }
@@ -134,11 +326,10 @@ public class TomasuloSimulator {
     }
     
     private void checkExecutionEnd() {
-        // Check all reservation stations for completed execution
-        for (ReservationStation rs : rsManager.getAllStations()) {
-            if (!rs.isBusy()) {
-                continue;
-            }
+        // Check busy reservation stations for completed execution
+        BitSet busy = rsManager.getBusyStations();
+        for (int id = busy.nextSetBit(0); id >= 0; id = busy.nextSetBit(id + 1)) {
+            ReservationStation rs = rsManager.getStation(id);
             
             Instruction inst = rs.getInstruction();
             if (inst == null) {
@@ -168,10 +359,10 @@ public class TomasuloSimulator {
                         int storeSize = getStoreSize(inst.getType());
                         int address = entry.getAddress();
                         double value = entry.getValue();
-                        byte[] data = doubleToBytes(value, storeSize);
                         
-                        // Actual state update
-                        cache.store(address, data);
+                        // Actual state update: the value as an integer (truncated toward zero),
+                        // lowest storeSize bytes in little-endian order
+                        cache.storeLong(address, storeSize, (long) value);
                     }
                 } else {
                     // Entry doesn't exist yet - execution hasn't started
@@ -187,23 +378,30 @@ public class TomasuloSimulator {
                     // Branch condition evaluation happens in write-back stage
                     // Vj and Vk already contain the register values, keep them for write-back
                 }
+            } else if (inst.getType().getCategory() == InstructionType.InstructionCategory.LOAD) {
+                // A speculative load keeps its value to itself until every older store has an address
+                if (rs.getCyclesRemaining() == 0
+                        && !(speculativeLoads && loadStoreBuffer.hasOlderUnresolvedStore(inst.getIssueCycle()))) {
+                    executionComplete = true;
+                }
             } else if (rs.getCyclesRemaining() == 0) {
                 executionComplete = true;
             }
             
             if (executionComplete) {
                 // Execution just ended
+                progressThisCycle = true;
                 inst.setExecuteEndCycle(state.getCurrentCycle());
-                log("Completed execution of " + inst.toString());
+                rs.setWriteBackPending(true);
+                log(ExecutionLog.Kind.EXECUTION_COMPLETED, inst);
                 
                 // For loads, prepare the result value from cache
                 if (inst.getType().getCategory() == InstructionType.InstructionCategory.LOAD) {
                     LoadStoreBuffer.LoadStoreEntry entry = loadStoreBuffer.getEntryByStation(rs.getName());
-                    if (entry != null && entry.getLoadData() != null) {
-                        int loadSize = getLoadSize(inst.getType());
-                        double value = bytesToDouble(entry.getLoadData(), loadSize);
-                        rs.setVj(String.valueOf(value));
-                        rs.setQj(null);
+                    if (entry != null && entry.hasLoadValue()) {
+                        // The loaded bytes as a little-endian integer, converted to the same numeric value
+                        rs.setVj((double) entry.getLoadValue());
+                        rs.setQj(ReservationStation.NO_TAG);
                     }
                 }
                 // For ALU operations, result is already in Vj/Vk, no action needed
@@ -233,6 +431,7 @@ public class TomasuloSimulator {
             // No station available - stall issue
             // Remove from trace if failed
             state.getTrace().remove(state.getTrace().size() - 1);
+            recordStall(StallReason.STRUCTURAL);
             return; 
         }
         
@@ -242,11 +441,11 @@ public class TomasuloSimulator {
             return;
         }
         
-        // Get source operands
-        String src1 = inst.getSrcRegister1();
-        String src2 = inst.getSrcRegister2();
-        String baseReg = inst.getBaseRegister();
-        String dest = inst.getDestRegister();
+        // Get source operands (register indices decoded by the parser)
+        int src1 = inst.getSrc1Index();
+        int src2 = inst.getSrc2Index();
+        int baseReg = inst.getBaseIndex();
+        int dest = inst.getDestIndex();
         
         switch (inst.getType().getCategory()) {
             case FP_ADD_SUB:
@@ -254,71 +453,81 @@ public class TomasuloSimulator {
                 rs.setBusy(true);
                 rs.setOperation(inst.getType().getMnemonic());
                 rs.setInstruction(inst);
-                log("Issued " + inst.toString() + " to " + rs.getName());
+                logIssue(inst, rs);
                 // Check if source registers are ready
-                String tag1 = registerFile.getTag(src1);
-                String tag2 = registerFile.getTag(src2);
+                int tag1 = registerFile.getTag(src1);
+                int tag2 = registerFile.getTag(src2);
                 
-                if (tag1 == null) {
-                    rs.setVj(String.valueOf(registerFile.getValue(src1)));
-                    rs.setQj(null);
+                if (tag1 == ReservationStation.NO_TAG) {
+                    rs.setVj(registerFile.getValue(src1));
+                    rs.setQj(ReservationStation.NO_TAG);
                 } else {
                     rs.setQj(tag1);
+                    rsManager.addDependent(tag1, rs);
                 }
                 
-                if (tag2 == null) {
-                    rs.setVk(String.valueOf(registerFile.getValue(src2)));
-                    rs.setQk(null);
+                if (tag2 == ReservationStation.NO_TAG) {
+                    rs.setVk(registerFile.getValue(src2));
+                    rs.setQk(ReservationStation.NO_TAG);
                 } else {
                     rs.setQk(tag2);
+                    rsManager.addDependent(tag2, rs);
                 }
                 
-                rs.setDestination(dest);
-                registerFile.setTag(dest, rs.getName());
+                rs.setDestination(inst.getDestRegister());
+                registerFile.setTag(dest, rs.getId());
                 break;
                 
             case INTEGER_ALU:
                 rs.setBusy(true);
                 rs.setOperation(inst.getType().getMnemonic());
                 rs.setInstruction(inst);
-                log("Issued " + inst.toString() + " to " + rs.getName());
+                logIssue(inst, rs);
                 tag1 = registerFile.getTag(src1);
-                if (tag1 == null) {
-                    rs.setVj(String.valueOf(registerFile.getValue(src1)));
-                    rs.setQj(null);
+                if (tag1 == ReservationStation.NO_TAG) {
+                    rs.setVj(registerFile.getValue(src1));
+                    rs.setQj(ReservationStation.NO_TAG);
                 } else {
                     rs.setQj(tag1);
+                    rsManager.addDependent(tag1, rs);
                 }
-                rs.setVk(String.valueOf(inst.getImmediate()));
-                rs.setQk(null);
-                rs.setDestination(dest);
-                registerFile.setTag(dest, rs.getName());
+                rs.setVk(inst.getImmediate());
+                rs.setQk(ReservationStation.NO_TAG);
+                rs.setDestination(inst.getDestRegister());
+                registerFile.setTag(dest, rs.getId());
                 break;
                 
             case LOAD:
                 tag1 = registerFile.getTag(baseReg);
                 Integer loadAddress = null;
-                if (tag1 == null) {
+                if (tag1 == ReservationStation.NO_TAG) {
                     double baseValue = registerFile.getValue(baseReg);
                     int address = (int) baseValue + inst.getImmediate();
                     loadAddress = address;
-                    rs.setVj(String.valueOf(address));
-                    rs.setQj(null);
+                    rs.setAddress(address);
+                    rs.setQj(ReservationStation.NO_TAG);
                 } else {
                     rs.setQj(tag1);
+                    rsManager.addDependent(tag1, rs);
                 }
 
                 // If base register is ready, we know the address and can perform
                 // an issue-time address clash check before reserving RS/LSB.
                 if (loadAddress != null) {
                     int loadSize = getLoadSize(inst.getType());
-                    if (loadStoreBuffer.hasAddressClashAtIssue(
-                            loadAddress,
-                            loadSize,
-                            LoadStoreBuffer.LoadStoreType.LOAD,
-                            inst.getIssueCycle())) {
+                    boolean clash = speculativeLoads
+                            ? hasSpeculativeClashAtIssue(inst, loadAddress, loadSize)
+                            : loadStoreBuffer.hasAddressClashAtIssue(
+                                    loadAddress,
+                                    loadSize,
+                                    LoadStoreBuffer.LoadStoreType.LOAD,
+                                    inst.getIssueCycle())
+                            && !(storeForwarding && loadStoreBuffer.findForwardingStore(
+                                    loadAddress, loadSize, inst.getIssueCycle() - 1) != null);
+                    if (clash) {
                         // Hazard with earlier memory op: do NOT issue this LOAD yet.
                         state.getTrace().remove(state.getTrace().size() - 1);
+                        recordStall(StallReason.ADDRESS_CLASH);
                         return;
                     }
                 }
@@ -326,35 +535,37 @@ public class TomasuloSimulator {
                 rs.setBusy(true);
                 rs.setOperation(inst.getType().getMnemonic());
                 rs.setInstruction(inst);
-                log("Issued " + inst.toString() + " to " + rs.getName());
-                rs.setDestination(dest);
-                registerFile.setTag(dest, rs.getName());
+                logIssue(inst, rs);
+                rs.setDestination(inst.getDestRegister());
+                registerFile.setTag(dest, rs.getId());
                 loadStoreBuffer.reserveEntry(inst, rs.getName());
                 break;
                 
             case STORE:
                 tag1 = registerFile.getTag(src1);
-                String tagBase = registerFile.getTag(baseReg);
+                int tagBase = registerFile.getTag(baseReg);
                 Double storeValue = null;
                 Integer storeAddress = null;
                 
-                if (tag1 == null) {
+                if (tag1 == ReservationStation.NO_TAG) {
                     double value = registerFile.getValue(src1);
                     storeValue = value;
-                    rs.setVj(String.valueOf(value));
-                    rs.setQj(null);
+                    rs.setVj(value);
+                    rs.setQj(ReservationStation.NO_TAG);
                 } else {
                     rs.setQj(tag1);
+                    rsManager.addDependent(tag1, rs);
                 }
                 
-                if (tagBase == null) {
+                if (tagBase == ReservationStation.NO_TAG) {
                     double baseValue = registerFile.getValue(baseReg);
                     int address = (int) baseValue + inst.getImmediate();
                     storeAddress = address;
-                    rs.setVk(String.valueOf(address));
-                    rs.setQk(null);
+                    rs.setAddress(address);
+                    rs.setQk(ReservationStation.NO_TAG);
                 } else {
                     rs.setQk(tagBase);
+                    rsManager.addDependent(tagBase, rs);
                 }
 
                 // If base register is ready, we know the address and can enforce ordering
@@ -367,6 +578,7 @@ public class TomasuloSimulator {
                             inst.getIssueCycle())) {
                         // Hazard with earlier memory op: do NOT issue this STORE yet.
                         state.getTrace().remove(state.getTrace().size() - 1);
+                        recordStall(StallReason.ADDRESS_CLASH);
                         return;
                     }
                 }
@@ -374,31 +586,43 @@ public class TomasuloSimulator {
                 rs.setBusy(true);
                 rs.setOperation(inst.getType().getMnemonic());
                 rs.setInstruction(inst);
-                log("Issued " + inst.toString() + " to " + rs.getName());
+                logIssue(inst, rs);
                 rs.setDestination(null);
                 loadStoreBuffer.reserveEntry(inst, rs.getName());
                 break;
         }
         
+        progressThisCycle = true;
         state.incrementInstructionPointer();
     }
     
+    // Issue-time load check when speculating: a predicted dependence on an unresolved store
+    // always blocks, a known overlapping store only if it cannot forward
+    private boolean hasSpeculativeClashAtIssue(Instruction inst, int address, int size) {
+        int latest = inst.getIssueCycle() - 1;
+        return loadStoreBuffer.hasOlderUnresolvedStore(inst.getIssueCycle(), store -> predictsDependence(inst, store))
+                || (loadStoreBuffer.hasKnownAddressClash(address, size, null, latest)
+                        && !(storeForwarding && loadStoreBuffer.findForwardingStore(address, size, latest, true) != null));
+    }
+    
+    private boolean predictsDependence(Instruction load, LoadStoreBuffer.LoadStoreEntry store) {
+        return dependencePredictor.predictsDependence(load.getProgramIndex(),
+                store.getInstruction().getProgramIndex());
+    }
+    
     private void issueBranch(Instruction inst, ReservationStation rs) {
-        String src1 = inst.getSrcRegister1();
-        String src2 = inst.getSrcRegister2();
+        int src1 = inst.getSrc1Index();
+        int src2 = inst.getSrc2Index();
         
-        // Trim register names to handle any whitespace issues
-        if (src1 != null) src1 = src1.trim();
-        if (src2 != null) src2 = src2.trim();
-        
-        String tag1 = registerFile.getTag(src1);
-        String tag2 = registerFile.getTag(src2);
+        int tag1 = registerFile.getTag(src1);
+        int tag2 = registerFile.getTag(src2);
         
         // Branch can only issue if both source registers are ready
-        if (tag1 != null || tag2 != null) {
+        if (tag1 != ReservationStation.NO_TAG || tag2 != ReservationStation.NO_TAG) {
             // Stall until registers are ready
             // Remove from trace as we didn't issue
             state.getTrace().remove(state.getTrace().size() - 1);
+            recordStall(StallReason.BRANCH_OPERANDS);
             return; 
         }
         
@@ -406,24 +630,24 @@ public class TomasuloSimulator {
         rs.setOperation(inst.getType().getMnemonic());
         rs.setInstruction(inst);
         
-        rs.setVj(String.valueOf(registerFile.getValue(src1)));
-        rs.setVk(String.valueOf(registerFile.getValue(src2)));
-        rs.setQj(null);
-        rs.setQk(null);
+        rs.setVj(registerFile.getValue(src1));
+        rs.setVk(registerFile.getValue(src2));
+        rs.setQj(ReservationStation.NO_TAG);
+        rs.setQk(ReservationStation.NO_TAG);
         
         // Start branch evaluation
         branchUnit.startBranch(inst, registerFile.getValue(src1), registerFile.getValue(src2));
         branchStall = true;
         
+        progressThisCycle = true;
         state.incrementInstructionPointer();
     }
     
     private void execute() {
-        // Process all reservation stations
-        for (ReservationStation rs : rsManager.getAllStations()) {
-            if (!rs.isBusy()) {
-                continue;
-            }
+        // Process busy reservation stations
+        BitSet busy = rsManager.getBusyStations();
+        for (int id = busy.nextSetBit(0); id >= 0; id = busy.nextSetBit(id + 1)) {
+            ReservationStation rs = rsManager.getStation(id);
             
             Instruction inst = rs.getInstruction();
             if (inst == null) {
@@ -437,8 +661,8 @@ public class TomasuloSimulator {
                 executeStore(rs, inst);
             } else if (inst.getType().getCategory() == InstructionType.InstructionCategory.BRANCH) {
                 // For branch operations, check if operands are ready
-                if ((rs.getQj() == null || rs.getQj().isEmpty()) &&
-                    (rs.getQk() == null || rs.getQk().isEmpty())) {
+                if (rs.getQj() == ReservationStation.NO_TAG &&
+                    rs.getQk() == ReservationStation.NO_TAG) {
                     
                     // Check if any dependency belongs to an incomplete simultaneous completion group
                     if (isDependencyInIncompleteGroup(rs.getQj()) || 
@@ -448,7 +672,7 @@ public class TomasuloSimulator {
                     }
                     
                     // Check if this RS is waiting for an incomplete group member to finish writing back
-                    if (dependentRSWaitingForIncompleteGroup.contains(rs.getName()) &&
+                    if (dependentRSWaitingForIncompleteGroup.get(rs.getId()) &&
                         !incompleteGroupMembers.isEmpty()) {
                         // This RS depends on an incomplete group member that wrote back this cycle
                         // Delay execution until all group members have written back
@@ -456,19 +680,20 @@ public class TomasuloSimulator {
                     }
                     
                     if (inst.getExecuteStartCycle() == -1) {
+                        progressThisCycle = true;
                         inst.setExecuteStartCycle(state.getCurrentCycle());
                         int latency = rsManager.getInstructionLatency(inst.getType());
                         // Set cycles - these will be decremented in tick() AFTER this cycle
                         rs.setCyclesRemaining(latency);
-                        log("Started execution of " + inst.toString());
+                        log(ExecutionLog.Kind.EXECUTION_STARTED, inst);
                     }
                     
                     // Execution continues, cycles decremented in tick()
                 }
             } else {
                 // For ALU operations, check if operands are ready
-                if ((rs.getQj() == null || rs.getQj().isEmpty()) &&
-                    (rs.getQk() == null || rs.getQk().isEmpty())) {
+                if (rs.getQj() == ReservationStation.NO_TAG &&
+                    rs.getQk() == ReservationStation.NO_TAG) {
                     
                     // Check if any dependency belongs to an incomplete simultaneous completion group
                     if (isDependencyInIncompleteGroup(rs.getQj()) || 
@@ -478,7 +703,7 @@ public class TomasuloSimulator {
                     }
                     
                     // Check if this RS is waiting for an incomplete group member to finish writing back
-                    if (dependentRSWaitingForIncompleteGroup.contains(rs.getName()) &&
+                    if (dependentRSWaitingForIncompleteGroup.get(rs.getId()) &&
                         !incompleteGroupMembers.isEmpty()) {
                         // This RS depends on an incomplete group member that wrote back this cycle
                         // Delay execution until all group members have written back
@@ -486,11 +711,12 @@ public class TomasuloSimulator {
                     }
                     
                     if (inst.getExecuteStartCycle() == -1) {
+                        progressThisCycle = true;
                         inst.setExecuteStartCycle(state.getCurrentCycle());
                         int latency = rsManager.getInstructionLatency(inst.getType());
                         // Set cycles - these will be decremented in tick() AFTER this cycle
                         rs.setCyclesRemaining(latency);
-                        log("Started execution of " + inst.toString());
+                        log(ExecutionLog.Kind.EXECUTION_STARTED, inst);
                     }
                     
                     // Execution continues, cycles decremented in tick()
@@ -501,7 +727,7 @@ public class TomasuloSimulator {
     
     private void executeLoad(ReservationStation rs, Instruction inst) {
         // Check if base register is ready
-        if (rs.getQj() != null && !rs.getQj().isEmpty()) {
+        if (rs.getQj() != ReservationStation.NO_TAG) {
             // Also check if the dependency belongs to an incomplete simultaneous completion group
             if (isDependencyInIncompleteGroup(rs.getQj())) {
                 return; // Wait for all group members to write back
@@ -509,54 +735,96 @@ public class TomasuloSimulator {
             return; // Base register not ready - wait
         }
         
-        // Vj should contain the address at this point
-        if (rs.getVj() == null || rs.getVj().isEmpty()) {
+        // The effective address should be known at this point
+        if (!rs.isAddressReady()) {
             return; // Address not calculated yet
         }
         
-        // Calculate address
-        int address;
-        try {
-            address = Integer.parseInt(rs.getVj());
-        } catch (NumberFormatException e) {
-            return; // Address not ready
-        }
+        int address = rs.getAddress();
         
         // Check for address clashes with stores
-        // Update LSB entry with calculated address
-        LoadStoreBuffer.LoadStoreEntry entry = loadStoreBuffer.updateLoadAddress(rs.getName(), address);
+        // Update LSB entry with calculated address (only the first resolution changes it)
+        LoadStoreBuffer.LoadStoreEntry entry = loadStoreBuffer.getEntryByStation(rs.getName());
         
         if (entry == null) {
             // Should have been reserved at issue
-             entry = loadStoreBuffer.addLoad(inst, address, rs.getName());
+            entry = loadStoreBuffer.addLoad(inst, address, rs.getName());
+            progressThisCycle = true;
+        } else if (!entry.isAddressValid()) {
+            loadStoreBuffer.updateLoadAddress(rs.getName(), address);
+            progressThisCycle = true;
         }
         
-        // Check address clashes (Load checking against Stores)
+        // Check address clashes (Load checking against Stores); a store that covers the load can forward instead
         int loadSize = getLoadSize(inst.getType());
-        if (loadStoreBuffer.hasAddressClash(address, loadSize, entry, LoadStoreBuffer.LoadStoreType.LOAD)) {
+        LoadStoreBuffer.LoadStoreEntry source = null;
+        boolean clash;
+        if (speculativeLoads) {
+            // Unresolved stores only hold the load back if the predictor ties it to one of them
+            clash = loadStoreBuffer.hasOlderUnresolvedStore(entry.getIssueCycle(),
+                    store -> predictsDependence(inst, store));
+            if (!clash) {
+                if (storeForwarding && inst.getExecuteStartCycle() == -1) {
+                    source = loadStoreBuffer.findForwardingStore(address, loadSize, entry.getIssueCycle(), true);
+                }
+                clash = source == null
+                        && loadStoreBuffer.hasKnownAddressClash(address, loadSize, entry, entry.getIssueCycle());
+            }
+        } else {
+            if (storeForwarding && inst.getExecuteStartCycle() == -1) {
+                source = loadStoreBuffer.findForwardingStore(address, loadSize, entry.getIssueCycle());
+            }
+            clash = source == null
+                    && loadStoreBuffer.hasAddressClash(address, loadSize, entry, LoadStoreBuffer.LoadStoreType.LOAD);
+        }
+        if (clash) {
+            if (inst.getExecuteStartCycle() == -1) {
+                recordStall(StallReason.ADDRESS_CLASH);
+            }
             return; // Wait for store to complete
         }
         
         // If execution hasn't started, start it
         if (inst.getExecuteStartCycle() == -1) {
+            progressThisCycle = true;
             inst.setExecuteStartCycle(state.getCurrentCycle());
-            // Access cache
-            Cache.CacheResult result = cache.load(address, loadSize);
+            long loaded;
+            int memoryLatency;
+            if (speculativeLoads && loadStoreBuffer.hasOlderUnresolvedStore(entry.getIssueCycle())) {
+                speculatedLoads++;
+            }
+            if (source != null) {
+                // Take the bytes the store will write; the cache is not accessed
+                loaded = forwardedValue(source, address, loadSize);
+                memoryLatency = forwardingLatency;
+                forwardedLoads++;
+                entry.setSourceIssueCycle(source.getIssueCycle());
+            } else {
+                // Access cache
+                loaded = cache.loadLong(address, loadSize);
+                memoryLatency = cache.getLastLatency();
+            }
             int instructionLatency = rsManager.getInstructionLatency(inst.getType());
-            int totalLatency = instructionLatency + result.getLatency(); // 2 + cache_latency
+            int totalLatency = instructionLatency + memoryLatency; // 2 + cache_latency
             // Set cycles - these will be decremented in tick() AFTER this cycle
             entry.setCyclesRemaining(totalLatency);
-            entry.setLoadData(result.getData());
+            entry.setLoadValue(loaded);
             rs.setCyclesRemaining(totalLatency);
-            // Vj currently has address, will be replaced with value when execution ends
-            log("Started execution of " + inst.toString());
+            // Vj will receive the loaded value when execution ends
+            log(ExecutionLog.Kind.EXECUTION_STARTED, inst);
         }
     }
     
+    // The bytes at address that store will write, as a little-endian value of size bytes
+    private static long forwardedValue(LoadStoreBuffer.LoadStoreEntry store, int address, int size) {
+        long bits = (long) store.getValue() >>> (8 * (address - store.getAddress()));
+        return size == Long.BYTES ? bits : bits & ((1L << (8 * size)) - 1);
+    }
+    
     private void executeStore(ReservationStation rs, Instruction inst) {
-        // Check if operands are ready (Qj and Qk must be null/empty)
-        if ((rs.getQj() != null && !rs.getQj().isEmpty()) ||
-            (rs.getQk() != null && !rs.getQk().isEmpty())) {
+        // Check if operands are ready (Qj and Qk must be NO_TAG)
+        if (rs.getQj() != ReservationStation.NO_TAG ||
+            rs.getQk() != ReservationStation.NO_TAG) {
             // Also check if any dependency belongs to an incomplete simultaneous completion group
             if (isDependencyInIncompleteGroup(rs.getQj()) || 
                 isDependencyInIncompleteGroup(rs.getQk())) {
@@ -565,61 +833,103 @@ public class TomasuloSimulator {
             return; // Operands not ready - wait for tags to clear
         }
         
-        // Vj should contain value, Vk should contain address
-        if (rs.getVj() == null || rs.getVj().isEmpty()) {
+        // Vj should contain the value, and the effective address should be known
+        if (!rs.isVjReady()) {
             return; // Value not ready
         }
         
-        if (rs.getVk() == null || rs.getVk().isEmpty()) {
+        if (!rs.isAddressReady()) {
             return; // Address not ready
         }
         
-        // Calculate address and value
-        int address;
-        double value;
-        try {
-            address = Integer.parseInt(rs.getVk());
-            value = Double.parseDouble(rs.getVj());
-        } catch (NumberFormatException e) {
-            // Invalid address or value format - wait
-            return;
-        }
+        int address = rs.getAddress();
+        double value = rs.getVj();
         
         // Check for address clashes with loads/stores
-        // Update LSB entry with calculated address and value
-        LoadStoreBuffer.LoadStoreEntry entry = loadStoreBuffer.updateStoreAddressAndValue(rs.getName(), address, value);
+        // Update LSB entry with calculated address and value (only the first resolution changes it)
+        LoadStoreBuffer.LoadStoreEntry entry = loadStoreBuffer.getEntryByStation(rs.getName());
         
         if (entry == null) {
             // Should have been reserved at issue
             entry = loadStoreBuffer.addStore(inst, address, rs.getName(), value);
+            progressThisCycle = true;
+            replayViolatedLoads(entry);
+        } else if (!entry.isAddressValid()) {
+            loadStoreBuffer.updateStoreAddressAndValue(rs.getName(), address, value);
+            progressThisCycle = true;
+            replayViolatedLoads(entry);
         }
         
         // Check address clashes (Store checking against Loads and Stores)
         int storeSize = getStoreSize(inst.getType());
         if (loadStoreBuffer.hasAddressClash(address, storeSize, entry, LoadStoreBuffer.LoadStoreType.STORE)) {
+            if (inst.getExecuteStartCycle() == -1) {
+                recordStall(StallReason.ADDRESS_CLASH);
+            }
             return; // Wait for conflicting load/store
         }
         
         // If execution hasn't started, start it
         if (inst.getExecuteStartCycle() == -1) {
+            progressThisCycle = true;
             inst.setExecuteStartCycle(state.getCurrentCycle());
             // Access cache - ONLY PROBE to calculate latency
-            Cache.CacheResult result = cache.probeStore(address, storeSize);
+            int cacheLatency = cache.probeStoreLatency(address, storeSize);
             int instructionLatency = rsManager.getInstructionLatency(inst.getType());
-            int totalLatency = instructionLatency + result.getLatency(); // 2 + cache_latency
+            int totalLatency = instructionLatency + cacheLatency; // 2 + cache_latency
             // Set cycles - these will be decremented in tick() AFTER this cycle
             entry.setCyclesRemaining(totalLatency);
             rs.setCyclesRemaining(totalLatency);
             
             // NOTE: Actual store to memory happens in checkExecutionEnd when cycles == 0
-            log("Started execution of " + inst.toString());
+            log(ExecutionLog.Kind.EXECUTION_STARTED, inst);
+        }
+    }
+    
+    /**
+     * Once a store's address is known, restart every younger load that
+     * speculatively read the bytes it writes. Such a load has not finished
+     * executing (see checkExecutionEnd), so no other instruction has seen its
+     * value and re-executing the load alone is enough.
+     */
+    private void replayViolatedLoads(LoadStoreBuffer.LoadStoreEntry store) {
+        if (!speculativeLoads || store == null) {
+            return;
+        }
+        for (LoadStoreBuffer.LoadStoreEntry load : loadStoreBuffer.findViolatedLoads(store)) {
+            orderViolations++;
+            dependencePredictor.recordViolation(load.getInstruction().getProgramIndex(),
+                    store.getInstruction().getProgramIndex());
+            ReservationStation rs = findStation(load.getInstruction());
+            if (rs == null || load.getInstruction().getExecuteEndCycle() != -1) {
+                continue;
+            }
+            load.clearLoadValue();
+            load.setCyclesRemaining(0);
+            rs.setCyclesRemaining(0);
+            load.getInstruction().setExecuteStartCycle(-1);
+            replayedLoads++;
+            log(ExecutionLog.Kind.LOAD_REPLAYED, load.getInstruction());
+        }
+    }
+    
+    private ReservationStation findStation(Instruction inst) {
+        BitSet busy = rsManager.getBusyStations();
+        for (int id = busy.nextSetBit(0); id >= 0; id = busy.nextSetBit(id + 1)) {
+            ReservationStation rs = rsManager.getStation(id);
+            if (rs.getInstruction() == inst) {
+                return rs;
+            }
         }
+        return null;
     }
     
     private void writeBack() {
         // Get stations that are ready for write-back (cycles = 0 AND execution ended)
-        List<ReservationStation> readyStations = new ArrayList<>();
-        for (ReservationStation rs : rsManager.getAllStations()) {
+        readyStations.clear();
+        BitSet pending = rsManager.getWriteBackPendingStations();
+        for (int id = pending.nextSetBit(0); id >= 0; id = pending.nextSetBit(id + 1)) {
+            ReservationStation rs = rsManager.getStation(id);
             if (rs.isBusy() && rs.getCyclesRemaining() == 0) {
                 Instruction inst = rs.getInstruction();
                 if (inst != null && inst.getExecuteEndCycle() != -1) {
@@ -629,46 +939,40 @@ public class TomasuloSimulator {
             }
         }
         
-        // Detect simultaneous completions: if multiple instructions are ready for write-back,
-        // check if they have the same executeEndCycle
-        if (readyStations.size() > 1) {
-            Map<Integer, List<ReservationStation>> groupsByEndCycle = new HashMap<>();
-            for (ReservationStation rs : readyStations) {
-                Instruction inst = rs.getInstruction();
-                if (inst != null) {
-                    int endCycle = inst.getExecuteEndCycle();
-                    groupsByEndCycle.computeIfAbsent(endCycle, k -> new ArrayList<>()).add(rs);
-                }
-            }
-            
-            // For each group with multiple members, create a simultaneous completion group
-            for (Map.Entry<Integer, List<ReservationStation>> entry : groupsByEndCycle.entrySet()) {
-                if (entry.getValue().size() > 1) {
-                    int endCycle = entry.getKey();
-                    Set<String> groupMembers = simultaneousCompletionGroups.computeIfAbsent(
-                        endCycle, k -> new HashSet<>());
-                    
-                    for (ReservationStation rs : entry.getValue()) {
-                        groupMembers.add(rs.getName());
-                        incompleteGroupMembers.add(rs.getName());
-                    }
+        // Detect simultaneous completions: ready stations with the same executeEndCycle
+        // form a group. Only a few stations are ready at once, so compare them pairwise.
+        int readyCount = readyStations.size();
+        for (int i = 0; i < readyCount; i++) {
+            ReservationStation rs = readyStations.get(i);
+            int endCycle = rs.getInstruction().getExecuteEndCycle();
+            for (int j = i + 1; j < readyCount; j++) {
+                ReservationStation other = readyStations.get(j);
+                if (other.getInstruction().getExecuteEndCycle() == endCycle) {
+                    BitSet groupMembers = simultaneousCompletionGroups.computeIfAbsent(
+                        endCycle, k -> new BitSet());
+                    groupMembers.set(rs.getId());
+                    groupMembers.set(other.getId());
+                    incompleteGroupMembers.set(rs.getId());
+                    incompleteGroupMembers.set(other.getId());
                 }
             }
         }
         
         // Sort by issue cycle (FIFO) to handle simultaneous completion
-        readyStations.sort(Comparator.comparing((ReservationStation rs) -> {
-            Instruction inst = rs.getInstruction();
-            return inst != null ? inst.getIssueCycle() : Integer.MAX_VALUE;
-        }));
+        if (readyStations.size() > 1) {
+            readyStations.sort(BY_ISSUE_CYCLE);
+            recordStall(StallReason.CDB);
+        }
         
         // Write-back one instruction per cycle (handle bus conflicts)
-        for (ReservationStation rs : readyStations) {
+        for (int r = 0; r < readyStations.size(); r++) {
+            ReservationStation rs = readyStations.get(r);
             Instruction inst = rs.getInstruction();
             if (inst == null) {
                 continue;
             }
             
+            progressThisCycle = true;
             String dest = rs.getDestination();
             
             if (dest != null && !dest.isEmpty()) {
@@ -678,12 +982,10 @@ public class TomasuloSimulator {
                 switch (inst.getType().getCategory()) {
                     case FP_ADD_SUB:
                     case FP_MUL_DIV:
-                        double vj = Double.parseDouble(rs.getVj());
-                        double vk = Double.parseDouble(rs.getVk());
-                        result = performOperation(inst.getType(), vj, vk);
+                        result = performOperation(inst.getType(), rs.getVj(), rs.getVk());
                         break;
                     case INTEGER_ALU:
-                        double val = Double.parseDouble(rs.getVj());
+                        double val = rs.getVj();
                         int imm = inst.getImmediate();
                         if (inst.getType() == InstructionType.ADDI || inst.getType() == InstructionType.DADDI) {
                             result = val + imm;
@@ -692,47 +994,49 @@ public class TomasuloSimulator {
                         }
                         break;
                     case LOAD:
-                        result = Double.parseDouble(rs.getVj());
+                        result = rs.getVj();
                         break;
                 }
                 
                 // Write result to register file
-                registerFile.setValue(dest, result);
+                int destIndex = inst.getDestIndex();
+                registerFile.setValue(destIndex, result);
                 
                 // Clear tag only if this reservation station is still the
                 // current producer for the destination register. This avoids
                 // an older writer (e.g., an earlier L.D) clearing the tag of
                 // a later writer (e.g., ADD.D) that also targets the same
                 // register.
-                String currentTag = registerFile.getTag(dest);
-                if (currentTag != null && currentTag.equals(rs.getName())) {
-                    registerFile.clearTag(dest);
+                if (registerFile.getTag(destIndex) == rs.getId()) {
+                    registerFile.clearTag(destIndex);
                 }
                 
                 // Check if this RS is in an incomplete group before updating operands
-                boolean isInIncompleteGroup = incompleteGroupMembers.contains(rs.getName());
+                boolean isInIncompleteGroup = incompleteGroupMembers.get(rs.getId());
                 
                 // If this RS is in an incomplete group, track which dependent RS are affected
                 // BEFORE calling updateOperands() (which will clear Qj/Qk)
                 if (isInIncompleteGroup) {
-                    incompleteGroupMembersWrittenBackThisCycle.add(rs.getName());
+                    incompleteGroupMembersWrittenBackThisCycle.set(rs.getId());
                     // Track which dependent RS had their Qj/Qk cleared by this incomplete group member
-                    for (ReservationStation dependentRS : rsManager.getAllStations()) {
+                    List<ReservationStation> dependents = rs.getDependents();
+                    for (int d = 0; d < dependents.size(); d++) {
+                        ReservationStation dependentRS = dependents.get(d);
                         if (dependentRS.isBusy() && 
-                            (rs.getName().equals(dependentRS.getQj()) || 
-                             rs.getName().equals(dependentRS.getQk()))) {
-                            dependentRSWaitingForIncompleteGroup.add(dependentRS.getName());
+                            (dependentRS.getQj() == rs.getId() || 
+                             dependentRS.getQk() == rs.getId())) {
+                            dependentRSWaitingForIncompleteGroup.set(dependentRS.getId());
                         }
                     }
                 }
                 
                 // Update reservation stations waiting for this result
-                rsManager.updateOperands(rs.getName(), result);
+                rsManager.updateOperands(rs.getId(), result);
                 
                 // Mark instruction as complete
                 inst.setWriteBackCycle(state.getCurrentCycle());
                 inst.setCompleted(true);
-                log("Write-back result " + result + " for " + inst.toString() + " to " + dest);
+                log(ExecutionLog.Kind.WRITE_BACK, inst, result, 0);
                 
                 // Remove from LoadStoreBuffer if it's a LOAD
                 if (inst.getType().getCategory() == InstructionType.InstructionCategory.LOAD) {
@@ -748,7 +1052,7 @@ public class TomasuloSimulator {
                 
                 // Check if this RS was part of a simultaneous completion group
                 // and if so, check if all members have written back
-                checkAndCleanupGroup(rs.getName(), inst.getExecuteEndCycle());
+                checkAndCleanupGroup(rs.getId(), inst.getExecuteEndCycle());
                 
                 // Only write-back one instruction per cycle (bus conflict resolution)
                 break;
@@ -756,7 +1060,7 @@ public class TomasuloSimulator {
                 // Store completed
                 inst.setWriteBackCycle(state.getCurrentCycle());
                 inst.setCompleted(true);
-                log("Store completed for " + inst.toString());
+                log(ExecutionLog.Kind.STORE_COMPLETED, inst);
                 rs.clear();
                 
                 LoadStoreBuffer.LoadStoreEntry entry = loadStoreBuffer.getEntryByStation(rs.getName());
@@ -766,16 +1070,16 @@ public class TomasuloSimulator {
                 }
                 
                 // Check if this RS is in an incomplete group
-                boolean isInIncompleteGroup = incompleteGroupMembers.contains(rs.getName());
+                boolean isInIncompleteGroup = incompleteGroupMembers.get(rs.getId());
                 if (isInIncompleteGroup) {
-                    incompleteGroupMembersWrittenBackThisCycle.add(rs.getName());
+                    incompleteGroupMembersWrittenBackThisCycle.set(rs.getId());
                     // Track which dependent RS had their Qj/Qk cleared by this incomplete group member
                     // BEFORE the RS is cleared (stores don't have destination, so no updateOperands call)
                     // But we still need to track for cleanup purposes
                 }
                 
                 // Check if this RS was part of a simultaneous completion group
-                checkAndCleanupGroup(rs.getName(), inst.getExecuteEndCycle());
+                checkAndCleanupGroup(rs.getId(), inst.getExecuteEndCycle());
                 
                 break;
             } else if (inst.getType().getCategory() == InstructionType.InstructionCategory.BRANCH) {
@@ -787,15 +1091,19 @@ public class TomasuloSimulator {
                 String src2 = inst.getSrcRegister2();
                 
                 // CONSOLE LOG: Branch evaluation start
-                System.out.println("\n========== BRANCH EVALUATION (Cycle " + state.getCurrentCycle() + ") ==========");
-                System.out.println("Instruction: " + inst.toString());
-                System.out.println("Branch Type: " + inst.getType().getMnemonic());
-                System.out.println("Raw register names from instruction: src1='" + src1 + "' src2='" + src2 + "'");
+                if (Trace.ENABLED) {
+                    Trace.println("\n========== BRANCH EVALUATION (Cycle " + state.getCurrentCycle() + ") ==========");
+                    Trace.println("Instruction: " + inst.toString());
+                    Trace.println("Branch Type: " + inst.getType().getMnemonic());
+                    Trace.println("Raw register names from instruction: src1='" + src1 + "' src2='" + src2 + "'");
+                }
                 
                 // Validate register names
                 if (src1 == null || src2 == null) {
-                    System.out.println("ERROR: Branch has null register names: src1=" + src1 + ", src2=" + src2);
-                    log("ERROR: Branch has null register names: src1=" + src1 + ", src2=" + src2);
+                    if (Trace.ENABLED) {
+                        Trace.println("ERROR: Branch has null register names: src1=" + src1 + ", src2=" + src2);
+                    }
+                    log(ExecutionLog.Kind.BRANCH_NULL_REGISTERS, inst);
                     inst.setWriteBackCycle(state.getCurrentCycle());
                     inst.setCompleted(true);
                     branchStall = false;
@@ -806,52 +1114,65 @@ public class TomasuloSimulator {
                 // Trim register names to handle any whitespace issues
                 src1 = src1.trim();
                 src2 = src2.trim();
-                System.out.println("Trimmed register names: src1='" + src1 + "' src2='" + src2 + "'");
+                if (Trace.ENABLED) {
+                    Trace.println("Trimmed register names: src1='" + src1 + "' src2='" + src2 + "'");
+                }
                 
                 // CONSOLE LOG: Register file state before reading
-                System.out.println("Register file state:");
-                System.out.println("  Integer registers: " + registerFile.getIntegerRegisters());
-                System.out.println("  FP registers: " + registerFile.getFpRegisters());
+                if (Trace.ENABLED) {
+                    Trace.println("Register file state:");
+                    Trace.println("  Integer registers: " + registerFile.getIntegerRegisters());
+                    Trace.println("  FP registers: " + registerFile.getFpRegisters());
+                }
                 
                 // Read current values directly from register file
                 // This ensures we get the most up-to-date values, even if registers were
                 // modified by earlier instructions that completed between branch issue and write-back
-                double reg1Value = registerFile.getValue(src1);
-                double reg2Value = registerFile.getValue(src2);
+                double reg1Value = registerFile.getValue(inst.getSrc1Index());
+                double reg2Value = registerFile.getValue(inst.getSrc2Index());
                 
                 // CONSOLE LOG: Values read from register file
-                System.out.println("Values read from register file:");
-                System.out.println("  " + src1 + " = " + reg1Value);
-                System.out.println("  " + src2 + " = " + reg2Value);
+                if (Trace.ENABLED) {
+                    Trace.println("Values read from register file:");
+                    Trace.println("  " + src1 + " = " + reg1Value);
+                    Trace.println("  " + src2 + " = " + reg2Value);
+                }
                 
                 // Log the values being compared for debugging
-                log("Branch evaluation at write-back: " + inst.toString() + 
-                    " | Register names: src1='" + src1 + "' src2='" + src2 + "'" +
-                    " | Reading from register file: " + src1 + "=" + reg1Value + ", " + src2 + "=" + reg2Value);
+                log(ExecutionLog.Kind.BRANCH_EVALUATED, inst, reg1Value, reg2Value);
                 
                 boolean branchTaken = false;
                 
                 // Use Double.compare for robust floating-point comparison
                 // For integer registers stored as doubles, this handles edge cases
                 int comparison = Double.compare(reg1Value, reg2Value);
-                System.out.println("Double.compare(" + reg1Value + ", " + reg2Value + ") = " + comparison);
+                if (Trace.ENABLED) {
+                    Trace.println("Double.compare(" + reg1Value + ", " + reg2Value + ") = " + comparison);
+                }
                 
                 if (inst.getType() == InstructionType.BEQ) {
                     branchTaken = (comparison == 0);
-                    System.out.println("BEQ: comparison == 0? " + (comparison == 0) + " -> branchTaken = " + branchTaken);
-                    log("BEQ comparison: Double.compare(" + reg1Value + ", " + reg2Value + ") = " + comparison + " -> " + branchTaken);
+                    if (Trace.ENABLED) {
+                        Trace.println("BEQ: comparison == 0? " + (comparison == 0) + " -> branchTaken = " + branchTaken);
+                    }
+                    log(ExecutionLog.Kind.BRANCH_COMPARED, inst, reg1Value, reg2Value);
                 } else if (inst.getType() == InstructionType.BNE) {
                     branchTaken = (comparison != 0);
-                    System.out.println("BNE: comparison != 0? " + (comparison != 0) + " -> branchTaken = " + branchTaken);
-                    log("BNE comparison: Double.compare(" + reg1Value + ", " + reg2Value + ") = " + comparison + " -> " + branchTaken);
+                    if (Trace.ENABLED) {
+                        Trace.println("BNE: comparison != 0? " + (comparison != 0) + " -> branchTaken = " + branchTaken);
+                    }
+                    log(ExecutionLog.Kind.BRANCH_COMPARED, inst, reg1Value, reg2Value);
                 } else {
-                    System.out.println("ERROR: Unknown branch type: " + inst.getType());
-                    log("ERROR: Unknown branch type: " + inst.getType());
+                    if (Trace.ENABLED) {
+                        Trace.println("ERROR: Unknown branch type: " + inst.getType());
+                    }
+                    log(ExecutionLog.Kind.BRANCH_UNKNOWN_TYPE, inst);
                 }
                 
-                System.out.println("Branch decision: " + (branchTaken ? "TAKEN" : "NOT TAKEN"));
-                log("Branch condition result: " + inst.getType().getMnemonic() + " -> " + 
-                    (branchTaken ? "TAKEN" : "NOT TAKEN"));
+                if (Trace.ENABLED) {
+                    Trace.println("Branch decision: " + (branchTaken ? "TAKEN" : "NOT TAKEN"));
+                }
+                log(branchTaken ? ExecutionLog.Kind.BRANCH_TAKEN : ExecutionLog.Kind.BRANCH_NOT_TAKEN, inst);
                 
                 if (branchTaken) {
                     // Calculate target address and update instruction pointer
@@ -859,22 +1180,30 @@ public class TomasuloSimulator {
                     int offset = inst.getImmediate();
                     int targetAddress = branchAddress + 4 + (offset * 4);
                     
-                    System.out.println("Branch TAKEN - calculating target:");
-                    System.out.println("  Branch address: " + branchAddress);
-                    System.out.println("  Offset: " + offset);
-                    System.out.println("  Target address: " + branchAddress + " + 4 + (" + offset + " * 4) = " + targetAddress);
-                    System.out.println("  Current IP before branch: " + state.getInstructionPointer());
+                    if (Trace.ENABLED) {
+                        Trace.println("Branch TAKEN - calculating target:");
+                        Trace.println("  Branch address: " + branchAddress);
+                        Trace.println("  Offset: " + offset);
+                        Trace.println("  Target address: " + branchAddress + " + 4 + (" + offset + " * 4) = " + targetAddress);
+                        Trace.println("  Current IP before branch: " + state.getInstructionPointer());
+                    }
                     
                     boolean found = false;
                     
                     // Try to find by exact address match
-                    System.out.println("Searching for target address " + targetAddress + " in instructions:");
+                    if (Trace.ENABLED) {
+                        Trace.println("Searching for target address " + targetAddress + " in instructions:");
+                    }
                     for (int i = 0; i < instructions.size(); i++) {
                         Instruction instr = instructions.get(i);
-                        System.out.println("  [" + i + "] Address: " + instr.getInstructionAddress() + " - " + instr.toString());
+                        if (Trace.ENABLED) {
+                            Trace.println("  [" + i + "] Address: " + instr.getInstructionAddress() + " - " + instr.toString());
+                        }
                         if (instr.getInstructionAddress() == targetAddress) {
                             if (i >= 0 && i < instructions.size()) {
-                                System.out.println("  FOUND! Setting IP to " + i);
+                                if (Trace.ENABLED) {
+                                    Trace.println("  FOUND! Setting IP to " + i);
+                                }
                                 state.setInstructionPointer(i);
                                 found = true;
                                 // Reset completion flag when looping back
@@ -888,7 +1217,9 @@ public class TomasuloSimulator {
                     
                     // Fallback: calculate index from branch offset
                     if (!found) {
-                        System.out.println("Exact address match failed, trying offset calculation...");
+                        if (Trace.ENABLED) {
+                            Trace.println("Exact address match failed, trying offset calculation...");
+                        }
                         int branchIndex = -1;
                         for (int i = 0; i < instructions.size(); i++) {
                             if (instructions.get(i).getInstructionAddress() == branchAddress &&
@@ -898,39 +1229,53 @@ public class TomasuloSimulator {
                             }
                         }
                         
-                        System.out.println("  Branch index: " + branchIndex);
+                        if (Trace.ENABLED) {
+                            Trace.println("  Branch index: " + branchIndex);
+                        }
                         if (branchIndex >= 0) {
                             int targetIndex = branchIndex + offset + 1;
-                            System.out.println("  Target index: " + branchIndex + " + " + offset + " + 1 = " + targetIndex);
+                            if (Trace.ENABLED) {
+                                Trace.println("  Target index: " + branchIndex + " + " + offset + " + 1 = " + targetIndex);
+                            }
                             
                             if (targetIndex >= 0 && targetIndex < instructions.size()) {
-                                System.out.println("  FOUND via offset! Setting IP to " + targetIndex);
+                                if (Trace.ENABLED) {
+                                    Trace.println("  FOUND via offset! Setting IP to " + targetIndex);
+                                }
                                 state.setInstructionPointer(targetIndex);
                                 found = true;
-                                log("Branch target resolved by offset calculation: index " + targetIndex);
+                                log(ExecutionLog.Kind.BRANCH_TARGET_BY_OFFSET, inst, targetIndex, 0);
                                 if (state.isSimulationComplete()) {
                                     state.setSimulationComplete(false);
                                 }
-                            } else {
-                                System.out.println("  ERROR: Target index " + targetIndex + " out of bounds [0, " + instructions.size() + ")");
+                            } else if (Trace.ENABLED) {
+                                Trace.println("  ERROR: Target index " + targetIndex + " out of bounds [0, " + instructions.size() + ")");
                             }
                         }
                     }
                     
                     if (!found) {
-                        System.out.println("ERROR: Branch target address " + targetAddress + " not found - instruction pointer not updated");
-                        log("ERROR: Branch target address " + targetAddress + " not found - instruction pointer not updated");
+                        if (Trace.ENABLED) {
+                            Trace.println("ERROR: Branch target address " + targetAddress + " not found - instruction pointer not updated");
+                        }
+                        log(ExecutionLog.Kind.BRANCH_TARGET_NOT_FOUND, inst, targetAddress, 0);
                     } else {
-                        System.out.println("Branch TAKEN: IP updated to " + state.getInstructionPointer());
-                        log("Branch TAKEN: jumping to address " + targetAddress);
+                        if (Trace.ENABLED) {
+                            Trace.println("Branch TAKEN: IP updated to " + state.getInstructionPointer());
+                        }
+                        log(ExecutionLog.Kind.BRANCH_JUMP, inst, targetAddress, 0);
                     }
                 } else {
-                    System.out.println("Branch NOT TAKEN: IP remains at " + state.getInstructionPointer());
-                    log("Branch NOT TAKEN: continuing to next instruction");
+                    if (Trace.ENABLED) {
+                        Trace.println("Branch NOT TAKEN: IP remains at " + state.getInstructionPointer());
+                    }
+                    log(ExecutionLog.Kind.BRANCH_FALL_THROUGH, inst);
                 }
                 
-                System.out.println("Final IP after branch: " + state.getInstructionPointer());
-                System.out.println("==========================================\n");
+                if (Trace.ENABLED) {
+                    Trace.println("Final IP after branch: " + state.getInstructionPointer());
+                    Trace.println("==========================================\n");
+                }
                 
                 // Mark branch as complete
                 inst.setWriteBackCycle(state.getCurrentCycle());
@@ -943,7 +1288,7 @@ public class TomasuloSimulator {
                 rs.clear();
                 
                 // Check if this RS was part of a simultaneous completion group
-                checkAndCleanupGroup(rs.getName(), inst.getExecuteEndCycle());
+                checkAndCleanupGroup(rs.getId(), inst.getExecuteEndCycle());
                 
                 break;
             }
@@ -951,39 +1296,34 @@ public class TomasuloSimulator {
     }
     
     /**
-     * Check if a dependency (reservation station name) belongs to an incomplete
+     * Check if a dependency (reservation station id) belongs to an incomplete
      * simultaneous completion group. If so, execution should be delayed.
      */
-    private boolean isDependencyInIncompleteGroup(String dependencyRS) {
-        if (dependencyRS == null || dependencyRS.isEmpty()) {
+    private boolean isDependencyInIncompleteGroup(int dependencyRS) {
+        if (dependencyRS == ReservationStation.NO_TAG) {
             return false;
         }
-        return incompleteGroupMembers.contains(dependencyRS);
+        return incompleteGroupMembers.get(dependencyRS);
     }
     
     /**
      * Check if a reservation station was part of a simultaneous completion group,
      * and if all members have written back, mark the group as complete.
      */
-    private void checkAndCleanupGroup(String rsName, int executeEndCycle) {
-        Set<String> group = simultaneousCompletionGroups.get(executeEndCycle);
-        if (group != null && group.contains(rsName)) {
+    private void checkAndCleanupGroup(int rsId, int executeEndCycle) {
+        BitSet group = simultaneousCompletionGroups.get(executeEndCycle);
+        if (group != null && group.get(rsId)) {
             // Check if all members of this group have written back
             boolean allWrittenBack = true;
-            for (String memberRS : group) {
-                // Find the reservation station by name
-                ReservationStation memberStation = null;
-                for (ReservationStation rs : rsManager.getAllStations()) {
-                    if (rs.getName().equals(memberRS)) {
-                        memberStation = rs;
-                        break;
-                    }
-                }
+            for (int memberRS = group.nextSetBit(0); memberRS >= 0; memberRS = group.nextSetBit(memberRS + 1)) {
+                ReservationStation memberStation = rsManager.getStation(memberRS);
                 
                 if (memberStation != null && memberStation.isBusy()) {
                     // Station is still busy - check if instruction has written back
                     Instruction memberInst = memberStation.getInstruction();
-                    if (memberInst != null && memberInst.getWriteBackCycle() == -1) {
+                    // A station reissued since the group formed holds a different instruction
+                    if (memberInst != null && memberInst.getWriteBackCycle() == -1
+                            && memberInst.getExecuteEndCycle() == executeEndCycle) {
                         // Instruction hasn't written back yet
                         allWrittenBack = false;
                         break;
@@ -994,9 +1334,7 @@ public class TomasuloSimulator {
             
             if (allWrittenBack) {
                 // All members have written back - mark group as complete
-                for (String memberRS : group) {
-                    incompleteGroupMembers.remove(memberRS);
-                }
+                incompleteGroupMembers.andNot(group);
                 // Clear dependent RS waiting flags since the group is now complete
                 dependentRSWaitingForIncompleteGroup.clear();
             }
@@ -1048,46 +1386,6 @@ public class TomasuloSimulator {
         }
     }
     
-    /**
-     * Encode a numeric value into bytes for memory/cache.
-     *
-     * Semantics:
-     * - Interpret the double as an integer value (truncating toward zero).
-     * - Lay out the integer in little-endian order: byte 0 holds the lowest 8 bits,
-     *   byte 1 the next 8 bits, etc.
-     * - The lowest {@code size} bytes are kept; any higher bits are discarded.
-     *
-     * Example:
-     *  value = 100 -> binary ...0001100100 -> bytes[0] = 0x64, bytes[1..7] = 0x00.
-     */
-    private byte[] doubleToBytes(double value, int size) {
-        long intValue = (long) value; // caller expected to pass integral values
-        byte[] result = new byte[size];
-        for (int i = 0; i < size; i++) {
-            result[i] = (byte) ((intValue >> (8 * i)) & 0xFF);
-        }
-        return result;
-    }
-    
-    /**
-     * Decode bytes from memory/cache back into a numeric value.
-     *
-     * Semantics:
-     * - Treat up to {@code size} bytes as a little-endian unsigned integer.
-     * - Convert that integer to a double with the same numeric value.
-     *
-     * Example:
-     *  bytes = {0x64, 0, 0, 0, 0, 0, 0, 0} -> value = 100.0
-     */
-    private double bytesToDouble(byte[] bytes, int size) {
-        long intValue = 0L;
-        int len = Math.min(size, bytes.length);
-        for (int i = 0; i < len; i++) {
-            intValue |= (long) (bytes[i] & 0xFF) << (8 * i);
-        }
-        return (double) intValue;
-    }
-    
     private void checkCompletion() {
         // Check if we still have instructions to issue
         if (state.getInstructionPointer() < instructions.size()) {
@@ -1099,22 +1397,10 @@ public class TomasuloSimulator {
         }
         
         // Check if all issued instructions are completed
-        boolean allCompleted = true;
-        for (Instruction inst : state.getTrace()) {
-            if (!inst.isCompleted()) {
-                allCompleted = false;
-                break;
-            }
-        }
+        boolean allCompleted = state.getTrace().allCompleted();
         
         // Also check if all reservation stations are empty
-        boolean allStationsEmpty = true;
-        for (ReservationStation rs : rsManager.getAllStations()) {
-            if (rs.isBusy()) {
-                allStationsEmpty = false;
-                break;
-            }
-        }
+        boolean allStationsEmpty = rsManager.getBusyStations().isEmpty();
         
         // Also check if Load/Store Buffer is empty (pending memory operations)
         boolean loadStoreBufferEmpty = loadStoreBuffer.isEmpty();
@@ -1134,6 +1420,7 @@ public class TomasuloSimulator {
     
     public void initializeStations(int fpAddSub, int fpMulDiv, int integerALU, int load, int store) {
         rsManager.initializeStations(fpAddSub, fpMulDiv, integerALU, load, store);
+        changes.markFullRefresh();
     }
 
     public void setInstructionLatency(String mnemonic, int latency) {
@@ -1156,8 +1443,95 @@ public class TomasuloSimulator {
         }
     }
 
-    private void log(String message) {
-        state.addLogMessage("Cycle " + state.getCurrentCycle() + ": " + message);
+    private void recordStall(StallReason reason) {
+        stalledThisCycle[reason.ordinal()] = true;
+    }
+    
+    /**
+     * Number of cycles in which {@code reason} held back progress since the last reset.
+     */
+    public long getStallCycles(StallReason reason) {
+        return stallCycles[reason.ordinal()];
+    }
+    
+    public boolean isStoreForwarding() {
+        return storeForwarding;
+    }
+    
+    /**
+     * Let a load whose bytes are all written by an older in-flight store with a
+     * known address take the value from that store instead of waiting for it.
+     * Only the youngest overlapping older store can forward, and never while an
+     * older store's address is unknown.
+     */
+    public void setStoreForwarding(boolean storeForwarding) {
+        this.storeForwarding = storeForwarding;
+    }
+    
+    public int getForwardingLatency() {
+        return forwardingLatency;
+    }
+    
+    /** Cycles a forwarded load spends in place of the cache latency. */
+    public void setForwardingLatency(int forwardingLatency) {
+        this.forwardingLatency = forwardingLatency;
+    }
+    
+    /** Loads that took their value from a store since the last reset. */
+    public long getForwardedLoads() {
+        return forwardedLoads;
+    }
+    
+    public boolean isSpeculativeLoads() {
+        return speculativeLoads;
+    }
+    
+    /**
+     * Let loads execute ahead of older stores whose addresses are not known
+     * yet, unless the dependence predictor has tied the load to one of them.
+     * A speculative load does not finish executing until every older store has
+     * an address; if one of them overlaps the bytes it read, the load is
+     * replayed and the predictor learns the pair. Takes effect for loads that
+     * have not started executing.
+     */
+    public void setSpeculativeLoads(boolean speculativeLoads) {
+        this.speculativeLoads = speculativeLoads;
+    }
+    
+    public StoreSetPredictor getDependencePredictor() {
+        return dependencePredictor;
+    }
+    
+    /** Replace the dependence predictor, e.g. to change its table size; takes effect after reset(). */
+    public void setDependencePredictor(StoreSetPredictor dependencePredictor) {
+        this.dependencePredictor = dependencePredictor;
+    }
+    
+    /** Loads that started executing while an older store's address was unknown, since the last reset. */
+    public long getSpeculatedLoads() {
+        return speculatedLoads;
+    }
+    
+    /** Load/store pairs caught out of order when the store's address became known. */
+    public long getOrderViolations() {
+        return orderViolations;
+    }
+    
+    /** Loads restarted after a violation. A load that violates several stores at once is replayed once. */
+    public long getReplayedLoads() {
+        return replayedLoads;
+    }
+    
+    private void log(ExecutionLog.Kind kind, Instruction inst) {
+        state.getLog().record(state.getCurrentCycle(), kind, ReservationStation.NO_TAG, inst, 0, 0);
+    }
+    
+    private void log(ExecutionLog.Kind kind, Instruction inst, double value, double value2) {
+        state.getLog().record(state.getCurrentCycle(), kind, ReservationStation.NO_TAG, inst, value, value2);
+    }
+    
+    private void logIssue(Instruction inst, ReservationStation rs) {
+        state.getLog().record(state.getCurrentCycle(), ExecutionLog.Kind.ISSUED, rs.getId(), inst, 0, 0);
     }
     
     // Getters
@@ -1169,10 +1543,30 @@ public class TomasuloSimulator {
         return registerFile;
     }
     
+    /** The first cache level; lower levels hang off {@link Cache#getNextLevel()}. */
     public Cache getCache() {
         return cache;
     }
     
+    /**
+     * Add a cache level below the current last one, using the first level's
+     * replacement policy. Its hit latency is what an access served from it costs.
+     *
+     * @param associativity ways per set, or {@link Cache#FULLY_ASSOCIATIVE}
+     * @param inclusion relation of the current last level to the new one
+     */
+    public Cache addCacheLevel(int cacheSize, int blockSize, int associativity, int hitLatency,
+                               Cache.Inclusion inclusion) {
+        Cache last = cache;
+        while (last.getNextLevel() != null) {
+            last = last.getNextLevel();
+        }
+        Cache level = new Cache(cacheSize, blockSize, associativity, cache.getReplacementPolicy(),
+                hitLatency, cache.getMissPenalty());
+        last.setNextLevel(level, inclusion);
+        return level;
+    }
+    
     public LoadStoreBuffer getLoadStoreBuffer() {
         return loadStoreBuffer;
     }
@@ -0,0 +1,128 @@
+package com.example.tomasulo.core;
+
+import com.example.tomasulo.utils.InstructionType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Random access to a trace written by {@link TraceFileWriter}. The file is
+ * memory-mapped read-only, in segments of whole blocks so files larger than
+ * 2 GB can be mapped, and every getter is a single absolute read.
+ */
+public class TraceFileReader implements Closeable {
+    // Blocks per mapping; keeps each MappedByteBuffer under the 2 GB limit
+    private static final int SEGMENT_BLOCKS = 16384;
+    private static final InstructionType[] TYPES = InstructionType.values();
+
+    private final FileChannel channel;
+    private final long recordCount;
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * @throws IOException if the file is not a trace file or is shorter than its header claims
+     */
+    public TraceFileReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(TraceFileWriter.HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException(file + ": not a trace file (header truncated)");
+                }
+            }
+            header.flip();
+            if (header.getInt() != TraceFileWriter.MAGIC) {
+                throw new IOException(file + ": not a trace file");
+            }
+            int version = header.getInt();
+            if (version != TraceFileWriter.VERSION) {
+                throw new IOException(file + ": unsupported trace version " + version);
+            }
+            if (header.getInt() != TraceFileWriter.BLOCK_RECORDS) {
+                throw new IOException(file + ": unsupported block size");
+            }
+            recordCount = header.getLong();
+
+            long blocks = (recordCount + TraceFileWriter.BLOCK_RECORDS - 1) / TraceFileWriter.BLOCK_RECORDS;
+            long expected = TraceFileWriter.HEADER_BYTES + blocks * TraceFileWriter.BLOCK_BYTES;
+            if (channel.size() < expected) {
+                throw new IOException(file + ": truncated, expected " + expected + " bytes");
+            }
+            segments = new MappedByteBuffer[(int) ((blocks + SEGMENT_BLOCKS - 1) / SEGMENT_BLOCKS)];
+            for (int s = 0; s < segments.length; s++) {
+                long firstBlock = (long) s * SEGMENT_BLOCKS;
+                long segmentBlocks = Math.min(SEGMENT_BLOCKS, blocks - firstBlock);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        TraceFileWriter.HEADER_BYTES + firstBlock * TraceFileWriter.BLOCK_BYTES,
+                        segmentBlocks * TraceFileWriter.BLOCK_BYTES);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return recordCount;
+    }
+
+    public int getIssueCycle(long index) {
+        return readInt(index, TraceFileWriter.ISSUE);
+    }
+
+    public int getExecuteStartCycle(long index) {
+        return readInt(index, TraceFileWriter.EXECUTE_START);
+    }
+
+    public int getExecuteEndCycle(long index) {
+        return readInt(index, TraceFileWriter.EXECUTE_END);
+    }
+
+    public int getWriteBackCycle(long index) {
+        return readInt(index, TraceFileWriter.WRITE_BACK);
+    }
+
+    public int getPc(long index) {
+        return readInt(index, TraceFileWriter.PC);
+    }
+
+    public InstructionType getType(long index) {
+        checkIndex(index);
+        long block = index / TraceFileWriter.BLOCK_RECORDS;
+        int slot = (int) (index % TraceFileWriter.BLOCK_RECORDS);
+        int offset = TraceFileWriter.INT_COLUMNS * TraceFileWriter.BLOCK_RECORDS * Integer.BYTES + slot;
+        return TYPES[segment(block).get(blockOffset(block) + offset)];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int readInt(long index, int column) {
+        checkIndex(index);
+        long block = index / TraceFileWriter.BLOCK_RECORDS;
+        int slot = (int) (index % TraceFileWriter.BLOCK_RECORDS);
+        return segment(block).getInt(blockOffset(block) + TraceFileWriter.columnOffset(column, slot));
+    }
+
+    private MappedByteBuffer segment(long block) {
+        return segments[(int) (block / SEGMENT_BLOCKS)];
+    }
+
+    private static int blockOffset(long block) {
+        return (int) (block % SEGMENT_BLOCKS) * TraceFileWriter.BLOCK_BYTES;
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + recordCount);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.tomasulo.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes per-instruction timing in the binary trace format read by
+ * {@link TraceFileReader}.
+ *
+ * Layout (big-endian): a {@link #HEADER_BYTES}-byte header
+ * (magic, version, records per block, record count) followed by fixed-size
+ * blocks of {@link #BLOCK_RECORDS} records. Within a block each field is
+ * stored as its own column:
+ * <pre>
+ * int issue[B] | int executeStart[B] | int executeEnd[B] | int writeBack[B] | int pc[B] | byte type[B]
+ * </pre>
+ * The last block is padded to full size, so record {@code i} of any column is
+ * at a fixed offset. Cycles not reached are stored as -1, as in
+ * {@link Instruction}; the type is the {@code InstructionType} ordinal.
+ */
+public class TraceFileWriter implements Closeable {
+    static final int MAGIC = 0x54524143; // "TRAC"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int BLOCK_RECORDS = 4096;
+
+    // Column order within a block
+    static final int ISSUE = 0;
+    static final int EXECUTE_START = 1;
+    static final int EXECUTE_END = 2;
+    static final int WRITE_BACK = 3;
+    static final int PC = 4;
+    static final int INT_COLUMNS = 5;
+    static final int BLOCK_BYTES = BLOCK_RECORDS * (INT_COLUMNS * Integer.BYTES + 1);
+
+    private final FileChannel channel;
+    private final byte[] blockBytes = new byte[BLOCK_BYTES];
+    private final ByteBuffer block = ByteBuffer.wrap(blockBytes);
+    private long recordCount;
+
+    /** Create or truncate {@code file} and write an empty header. */
+    public TraceFileWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader();
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public void append(Instruction inst) throws IOException {
+        append(inst.getInstructionAddress(), inst.getType().ordinal(), inst.getIssueCycle(),
+                inst.getExecuteStartCycle(), inst.getExecuteEndCycle(), inst.getWriteBackCycle());
+    }
+
+    public void append(int pc, int typeOrdinal, int issue, int executeStart, int executeEnd, int writeBack)
+            throws IOException {
+        int slot = (int) (recordCount % BLOCK_RECORDS);
+        block.putInt(columnOffset(ISSUE, slot), issue);
+        block.putInt(columnOffset(EXECUTE_START, slot), executeStart);
+        block.putInt(columnOffset(EXECUTE_END, slot), executeEnd);
+        block.putInt(columnOffset(WRITE_BACK, slot), writeBack);
+        block.putInt(columnOffset(PC, slot), pc);
+        block.put(INT_COLUMNS * BLOCK_RECORDS * Integer.BYTES + slot, (byte) typeOrdinal);
+        recordCount++;
+        if (slot == BLOCK_RECORDS - 1) {
+            writeBlock();
+        }
+    }
+
+    /** Drop every record written so far. */
+    public void clear() throws IOException {
+        channel.truncate(0);
+        recordCount = 0;
+        Arrays.fill(blockBytes, (byte) 0);
+        writeHeader();
+    }
+
+    /** Write the partial last block and the final record count. */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (recordCount % BLOCK_RECORDS != 0) {
+                writeBlock();
+            }
+            writeHeader();
+        } finally {
+            channel.close();
+        }
+    }
+
+    static int columnOffset(int column, int slot) {
+        return (column * BLOCK_RECORDS + slot) * Integer.BYTES;
+    }
+
+    private void writeBlock() throws IOException {
+        long blockIndex = (recordCount - 1) / BLOCK_RECORDS;
+        long position = HEADER_BYTES + blockIndex * BLOCK_BYTES;
+        block.clear();
+        while (block.hasRemaining()) {
+            position += channel.write(block, position);
+        }
+        block.clear();
+        Arrays.fill(blockBytes, (byte) 0);
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(BLOCK_RECORDS).putLong(recordCount);
+        header.clear();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+}
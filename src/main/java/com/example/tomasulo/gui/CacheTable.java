@@ -2,6 +2,7 @@ package com.example.tomasulo.gui;
 
 import com.example.tomasulo.components.Cache;
 import com.example.tomasulo.components.CacheBlock;
+import com.example.tomasulo.core.ChangeSet;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.*;
@@ -42,44 +43,70 @@ public class CacheTable {
         statsLabel = new Label();
     }
     
-    public void update(Cache cache) {
-        data.clear();
+    /** Show the L1 block rows and per-level statistics of a frame snapshot. */
+    public void show(CacheBlockData[] rows, String stats) {
+        FrameSnapshot.show(data, rows);
+        statsLabel.setText(stats);
+    }
+    
+    /**
+     * One row per L1 block, reusing {@code previous} rows of blocks not listed
+     * in {@code changes}. The caller must hold the simulator's monitor.
+     */
+    static CacheBlockData[] snapshot(Cache cache, CacheBlockData[] previous, ChangeSet changes) {
+        return FrameSnapshot.patch(previous, cache.getNumBlocks(), changes.getCacheBlocks(),
+                CacheBlockData[]::new, i -> buildRow(cache, i));
+    }
+    
+    // One line per level; the table itself shows L1's blocks
+    static String stats(Cache cache) {
+        StringBuilder sb = new StringBuilder();
+        int level = 1;
+        for (Cache c = cache; c != null; c = c.getNextLevel(), level++) {
+            if (level > 1) {
+                sb.append('\n');
+            }
+            sb.append(String.format("L%d %d-way, %s | Hits: %d, Misses: %d, Hit Rate: %.2f%%",
+                    level, c.getAssociativity(), c.getReplacementPolicy(),
+                    c.getHits(), c.getMisses(), c.getHitRate() * 100));
+            if (c.getNextLevel() != null) {
+                sb.append(" | L").append(level + 1).append(' ').append(c.getInclusion().name().toLowerCase());
+            }
+        }
+        return sb.toString();
+    }
+    
+    private static CacheBlockData buildRow(Cache cache, int i) {
+        CacheBlock block = cache.getBlock(i);
+        CacheBlockData blockData = new CacheBlockData();
+        // Direct-mapped blocks show their index; otherwise set:way
+        int ways = cache.getAssociativity();
+        blockData.setIndex(ways == 1 ? String.valueOf(i) : (i / ways) + ":" + (i % ways));
+        blockData.setValid(block.isValid() ? "Yes" : "No");
+        blockData.setTag(block.isValid() ? String.valueOf(block.getTag()) : "");
+        blockData.setBaseAddress(block.isValid() ? String.valueOf(block.getBaseAddress()) : "");
+        blockData.setDirty(block.isValid() && block.isDirty() ? "Yes" : "No");
         
-        for (int i = 0; i < cache.getNumBlocks(); i++) {
-            CacheBlock block = cache.getBlock(i);
-            CacheBlockData blockData = new CacheBlockData();
-            blockData.setIndex(String.valueOf(i));
-            blockData.setValid(block.isValid() ? "Yes" : "No");
-            blockData.setTag(block.isValid() ? String.valueOf(block.getTag()) : "");
-            blockData.setBaseAddress(block.isValid() ? String.valueOf(block.getBaseAddress()) : "");
-            blockData.setDirty(block.isValid() && block.isDirty() ? "Yes" : "No");
-            
-            if (block.isValid()) {
-                byte[] bytes = block.getData();
+        if (block.isValid()) {
+            byte[] bytes = block.getData();
 
-                // Interpret the block as a little-endian unsigned integer.
-                long intValue = 0L;
-                int len = Math.min(8, bytes.length);
-                for (int j = 0; j < len; j++) {
-                    intValue |= (long) (bytes[j] & 0xFF) << (8 * j);
-                }
-
-                // Hex representation of the same 64-bit integer.
-                blockData.setHexValue(String.format("0x%016X", intValue));
-            } else {
-                blockData.setHexValue("");
+            // Interpret the block as a little-endian unsigned integer.
+            long intValue = 0L;
+            int len = Math.min(8, bytes.length);
+            for (int j = 0; j < len; j++) {
+                intValue |= (long) (bytes[j] & 0xFF) << (8 * j);
             }
-            
-            data.add(blockData);
+
+            // Hex representation of the same 64-bit integer.
+            blockData.setHexValue(String.format("0x%016X", intValue));
+        } else {
+            blockData.setHexValue("");
         }
-        
-        // Update statistics
-        statsLabel.setText(String.format("Hits: %d, Misses: %d, Hit Rate: %.2f%%",
-                cache.getHits(), cache.getMisses(), cache.getHitRate() * 100));
+        return blockData;
     }
     
     public VBox getView() {
-        Label title = new Label("Cache");
+        Label title = new Label("Cache (L1)");
         title.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
         VBox vbox = new VBox(5);
         vbox.getChildren().addAll(title, tableView, statsLabel);
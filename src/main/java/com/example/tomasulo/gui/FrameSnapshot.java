@@ -0,0 +1,161 @@
+package com.example.tomasulo.gui;
+
+import com.example.tomasulo.core.ChangeSet;
+import com.example.tomasulo.core.ExecutionState;
+import com.example.tomasulo.core.Instruction;
+import com.example.tomasulo.core.TomasuloSimulator;
+import com.example.tomasulo.gui.CacheTable.CacheBlockData;
+import com.example.tomasulo.gui.InstructionListTable.InstructionData;
+import com.example.tomasulo.gui.LoadStoreBufferTable.LSBufferData;
+import com.example.tomasulo.gui.RegisterFileTable.RegisterData;
+import com.example.tomasulo.gui.ReservationStationTable.ReservationStationData;
+import javafx.collections.ObservableList;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Everything one frame draws, copied out of the simulator while its monitor
+ * is held. Rows are formatted once and never modified afterwards, so the FX
+ * thread can draw a snapshot while the simulation thread keeps running.
+ *
+ * A snapshot reuses the previous snapshot's rows for everything the simulator
+ * did not change. The instruction table gets only the newest trace rows; older
+ * rows change rarely and are read from the trace under {@link #traceLock}.
+ */
+final class FrameSnapshot {
+    // Newest trace rows formatted into each snapshot; covers the rows on screen while following
+    static final int TRACE_WINDOW = 256;
+
+    final int cycle;
+    final String status;
+    final boolean fullRefresh;
+
+    // The list the instruction table shows: the trace, or the program before the first cycle
+    final List<Instruction> traceSource;
+    final Object traceLock; // the simulator; hold it to read traceSource
+    final int traceSize;
+    final int currentRow;
+    final int firstChangedRow;
+    final int windowStart;
+    final InstructionData[] window;
+
+    final ReservationStationData[] stations;
+    final RegisterData[] registers;
+    final CacheBlockData[] cacheBlocks;
+    final String cacheStats;
+    final LSBufferData[] loadStoreEntries;
+
+    // Log lines from logFrom to logSize; with logReplaced they replace the shown log
+    final boolean logReplaced;
+    final int logFrom;
+    final int logSize;
+    final String logText;
+
+    private FrameSnapshot(TomasuloSimulator simulator, FrameSnapshot previous, FrameSnapshot undrawn) {
+        ExecutionState state = simulator.getState();
+        ChangeSet changes = simulator.drainChanges();
+        // Rows are patched against the previous snapshot, but what the FX thread
+        // redraws is relative to the last snapshot it drew
+        boolean rebuild = changes.isFullRefresh() || previous == null;
+        fullRefresh = rebuild || (undrawn != null && undrawn.fullRefresh);
+        cycle = state.getCurrentCycle();
+        status = state.getStatusMessage();
+
+        List<Instruction> source = state.getTrace();
+        if (source.isEmpty() && cycle == 0) {
+            source = simulator.getInstructions();
+        }
+        traceSource = source;
+        traceLock = simulator;
+        traceSize = source.size();
+        currentRow = state.isSimulationComplete() ? -1 : state.getInstructionPointer();
+        firstChangedRow = undrawn == null ? changes.getFirstTraceRow()
+                : Math.min(changes.getFirstTraceRow(), undrawn.firstChangedRow);
+        windowStart = Math.max(0, traceSize - TRACE_WINDOW);
+        window = new InstructionData[traceSize - windowStart];
+        boolean sameSource = !rebuild && previous.traceSource == source;
+        for (int i = 0; i < window.length; i++) {
+            int row = windowStart + i;
+            int old = sameSource ? row - previous.windowStart : -1;
+            if (old >= 0 && old < previous.window.length && row < changes.getFirstTraceRow()
+                    && row != currentRow && row != previous.currentRow) {
+                window[i] = previous.window[old];
+            } else {
+                window[i] = InstructionListTable.buildRow(source.get(row), row == currentRow);
+            }
+        }
+
+        stations = ReservationStationTable.snapshot(simulator.getRsManager(),
+                rebuild ? null : previous.stations, changes);
+        registers = RegisterFileTable.snapshot(simulator.getRegisterFile(), simulator.getRsManager(),
+                rebuild ? null : previous.registers, changes);
+        cacheBlocks = CacheTable.snapshot(simulator.getCache(), rebuild ? null : previous.cacheBlocks, changes);
+        cacheStats = CacheTable.stats(simulator.getCache());
+        loadStoreEntries = LoadStoreBufferTable.snapshot(simulator.getLoadStoreBuffer());
+
+        List<String> log = state.getExecutionLog();
+        int from = undrawn != null ? undrawn.logFrom : previous != null ? previous.logSize : 0;
+        logReplaced = fullRefresh || (undrawn != null && undrawn.logReplaced) || log.size() < from;
+        logFrom = logReplaced ? 0 : from;
+        logSize = log.size();
+        StringBuilder sb = new StringBuilder();
+        for (int i = logFrom; i < logSize; i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            sb.append(log.get(i));
+        }
+        logText = sb.toString();
+    }
+
+    /**
+     * Snapshot {@code simulator}; the caller must hold its monitor.
+     *
+     * @param previous the last snapshot captured of this simulator, or null
+     * @param undrawn the last snapshot if it is being replaced before it was
+     *                drawn, else null; the new snapshot redraws what it would have
+     */
+    static FrameSnapshot capture(TomasuloSimulator simulator, FrameSnapshot previous, FrameSnapshot undrawn) {
+        return new FrameSnapshot(simulator, previous, undrawn);
+    }
+
+    /**
+     * {@code size} rows: all built anew if {@code previous} is null or a
+     * different size, else {@code previous} with the rows in {@code changed}
+     * rebuilt. Returns {@code previous} itself if nothing changed.
+     */
+    static <T> T[] patch(T[] previous, int size, BitSet changed, IntFunction<T[]> newArray,
+                         IntFunction<T> build) {
+        if (previous == null || previous.length != size) {
+            T[] rows = newArray.apply(size);
+            for (int i = 0; i < size; i++) {
+                rows[i] = build.apply(i);
+            }
+            return rows;
+        }
+        int first = changed.nextSetBit(0);
+        if (first < 0 || first >= size) {
+            return previous;
+        }
+        T[] rows = previous.clone();
+        for (int i = first; i >= 0 && i < size; i = changed.nextSetBit(i + 1)) {
+            rows[i] = build.apply(i);
+        }
+        return rows;
+    }
+
+    /** Show {@code rows}, replacing only the rows that are not already shown. */
+    static <T> void show(ObservableList<T> data, T[] rows) {
+        if (data.size() != rows.length) {
+            data.setAll(rows);
+            return;
+        }
+        for (int i = 0; i < rows.length; i++) {
+            if (data.get(i) != rows[i]) {
+                data.set(i, rows[i]);
+            }
+        }
+    }
+}
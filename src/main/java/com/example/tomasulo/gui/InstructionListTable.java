@@ -1,22 +1,44 @@
 package com.example.tomasulo.gui;
 
-import com.example.tomasulo.core.ExecutionState;
 import com.example.tomasulo.core.Instruction;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Shows the trace through a lazy list model: the TableView's virtual flow only
+ * asks for the rows on screen. The newest rows come formatted in each
+ * {@link FrameSnapshot}; older rows are formatted from the trace (or the
+ * trace's spill file) when they are asked for. Only a small cache of
+ * formatted rows is kept.
+ *
+ * A run keeps changing the trace, so every read of it, including the
+ * searches behind the jump buttons, holds the simulator's monitor. The
+ * simulation thread lets go of it every few milliseconds.
+ *
+ * Follows the newest row while "Follow" is checked; "Go to cycle" and
+ * "Go to PC" jump to a row and stop following.
+ */
 public class InstructionListTable {
     private TableView<InstructionData> tableView;
-    private ObservableList<InstructionData> data;
+    private TraceRows data;
+    private final CheckBox followBox = new CheckBox("Follow");
+    private final TextField jumpField = new TextField();
+    private final Button cycleButton = new Button("Go to cycle");
+    private final Button pcButton = new Button("Go to PC");
+    private final Label infoLabel = new Label();
     
     public InstructionListTable() {
         tableView = new TableView<>();
-        data = FXCollections.observableArrayList();
+        data = new TraceRows();
         
         TableColumn<InstructionData, String> pcCol = new TableColumn<>("PC");
         pcCol.setCellValueFactory(new PropertyValueFactory<>("pc"));
@@ -42,28 +64,243 @@ public class InstructionListTable {
         tableView.getColumns().addAll(pcCol, instructionCol, issueCol, execStartCol, execEndCol, wbCol, completeCol);
         tableView.setItems(data);
         tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        // Every row has the same height, so the virtual flow need not measure them
+        tableView.setFixedCellSize(24);
+
+        followBox.setSelected(true);
+        followBox.setOnAction(e -> {
+            if (followBox.isSelected()) {
+                scrollToEnd();
+            }
+        });
+        jumpField.setPromptText("cycle or PC (0x...)");
+        jumpField.setPrefColumnCount(10);
+        cycleButton.setOnAction(e -> jumpToCycle());
+        pcButton.setOnAction(e -> jumpToPc());
     }
     
-    public void update(List<Instruction> instructions, ExecutionState state) {
-        data.clear();
+    /**
+     * Show the trace as of {@code frame}. Rows the frame marks as changed are
+     * dropped from the cache; only rows on screen are formatted again.
+     */
+    void show(FrameSnapshot frame) {
+        if (frame.fullRefresh || frame.traceSource != data.source) {
+            data.setSource(frame);
+        } else {
+            if (data.changed(frame)) {
+                tableView.refresh(); // redraws only the cells on screen
+            }
+        }
+        afterUpdate();
+    }
+
+    private void afterUpdate() {
+        infoLabel.setText(data.size() + (data.size() == 1 ? " entry" : " entries"));
+        if (followBox.isSelected()) {
+            scrollToEnd();
+        }
+    }
+
+    private void scrollToEnd() {
+        if (!data.isEmpty()) {
+            tableView.scrollTo(data.size() - 1);
+        }
+    }
+
+    // Rows are appended in issue order, so issue cycles never decrease down the table
+    private void jumpToCycle() {
+        int cycle;
+        try {
+            cycle = Integer.parseInt(jumpField.getText().trim());
+        } catch (NumberFormatException e) {
+            infoLabel.setText("Enter a cycle number");
+            return;
+        }
+        int lo = 0;
+        int hi = data.size();
+        synchronized (data.lock) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int issue = data.source.get(mid).getIssueCycle();
+                if (issue >= 0 && issue < cycle) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+        }
+        if (lo == data.size()) {
+            infoLabel.setText("Nothing issued at or after cycle " + cycle);
+            return;
+        }
+        showRow(lo);
+    }
+
+    // Next row after the selection with the given PC, wrapping around
+    private void jumpToPc() {
+        int pc;
+        try {
+            pc = Integer.decode(jumpField.getText().trim());
+        } catch (NumberFormatException e) {
+            infoLabel.setText("Enter a PC, e.g. 0x0010");
+            return;
+        }
+        int size = data.size();
+        int start = tableView.getSelectionModel().getSelectedIndex() + 1;
+        int found = -1;
+        synchronized (data.lock) {
+            for (int n = 0; n < size && found < 0; n++) {
+                int i = (start + n) % size;
+                if (data.source.get(i).getInstructionAddress() == pc) {
+                    found = i;
+                }
+            }
+        }
+        if (found >= 0) {
+            showRow(found);
+            return;
+        }
+        infoLabel.setText(String.format("PC 0x%04X not in trace", pc));
+    }
+
+    private void showRow(int row) {
+        followBox.setSelected(false);
+        tableView.getSelectionModel().clearAndSelect(row);
+        tableView.scrollTo(row);
+    }
+
+    static InstructionData buildRow(Instruction inst, boolean current) {
+        InstructionData instData = new InstructionData();
+        instData.setPc(String.format("0x%04X", inst.getInstructionAddress()));
+        instData.setInstruction(inst.toString());
+        instData.setIssueCycle(inst.getIssueCycle() >= 0 ? String.valueOf(inst.getIssueCycle()) : "");
+        instData.setExecuteStartCycle(inst.getExecuteStartCycle() >= 0 ? String.valueOf(inst.getExecuteStartCycle()) : "");
+        instData.setExecuteEndCycle(inst.getExecuteEndCycle() >= 0 ? String.valueOf(inst.getExecuteEndCycle()) : "");
+        instData.setWriteBackCycle(inst.getWriteBackCycle() >= 0 ? String.valueOf(inst.getWriteBackCycle()) : "");
+        instData.setCompleted(inst.isCompleted() ? "Yes" : "No");
         
-        for (int i = 0; i < instructions.size(); i++) {
-            Instruction inst = instructions.get(i);
-            InstructionData instData = new InstructionData();
-            instData.setPc(String.format("0x%04X", inst.getInstructionAddress()));
-            instData.setInstruction(inst.toString());
-            instData.setIssueCycle(inst.getIssueCycle() >= 0 ? String.valueOf(inst.getIssueCycle()) : "");
-            instData.setExecuteStartCycle(inst.getExecuteStartCycle() >= 0 ? String.valueOf(inst.getExecuteStartCycle()) : "");
-            instData.setExecuteEndCycle(inst.getExecuteEndCycle() >= 0 ? String.valueOf(inst.getExecuteEndCycle()) : "");
-            instData.setWriteBackCycle(inst.getWriteBackCycle() >= 0 ? String.valueOf(inst.getWriteBackCycle()) : "");
-            instData.setCompleted(inst.isCompleted() ? "Yes" : "No");
-            
-            // Highlight current instruction
-            if (i == state.getInstructionPointer() && !state.isSimulationComplete()) {
-                instData.setCurrent(true);
+        // Highlight current instruction
+        instData.setCurrent(current);
+        return instData;
+    }
+
+    /**
+     * Read-only list of formatted rows over a trace. Rows in the latest
+     * snapshot's window are served from it; others are built on first access
+     * and kept in a small LRU cache. Change notifications invalidate cached
+     * rows and tell the TableView which rows to redraw.
+     */
+    private static class TraceRows extends ObservableListBase<InstructionData> {
+        private static final int CACHE_ROWS = 256;
+        private static final InstructionData STALE_ROW = new InstructionData();
+
+        private List<Instruction> source = List.of();
+        private Object lock = source; // held while reading source
+        private int size;
+        private int current = -1;
+        private int windowStart;
+        private InstructionData[] window = new InstructionData[0];
+        private final Map<Integer, InstructionData> cache =
+                new LinkedHashMap<Integer, InstructionData>(CACHE_ROWS, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Integer, InstructionData> eldest) {
+                        return size() > CACHE_ROWS;
+                    }
+                };
+
+        @Override
+        public InstructionData get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            if (index >= windowStart && index - windowStart < window.length) {
+                return window[index - windowStart];
+            }
+            InstructionData row = cache.get(index);
+            if (row == null) {
+                synchronized (lock) {
+                    row = buildRow(source.get(index), index == current);
+                }
+                cache.put(index, row);
+            }
+            return row;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        void setSource(FrameSnapshot frame) {
+            List<InstructionData> removed = stale(size);
+            cache.clear();
+            source = frame.traceSource;
+            lock = frame.traceLock;
+            current = frame.currentRow;
+            setWindow(frame);
+            beginChange();
+            if (!removed.isEmpty()) {
+                nextRemove(0, removed);
+            }
+            size = frame.traceSize;
+            if (size > 0) {
+                nextAdd(0, size);
+            }
+            endChange();
+        }
+
+        /**
+         * Rows from the frame's first changed row to the old end may have
+         * changed, rows past the old end are new, and the current-instruction
+         * row may have moved.
+         *
+         * @return true if rows that were already shown changed
+         */
+        boolean changed(FrameSnapshot frame) {
+            int oldSize = size;
+            int newSize = frame.traceSize;
+            int newCurrent = frame.currentRow;
+            int from = Math.min(Math.max(frame.firstChangedRow, 0), oldSize);
+            setWindow(frame);
+            boolean updated = false;
+            beginChange();
+            if (newSize < oldSize) {
+                // Not expected between resets, but keep the list consistent
+                nextRemove(newSize, stale(oldSize - newSize));
+                oldSize = newSize;
+                from = Math.min(from, newSize);
+            }
+            for (int i = from; i < oldSize; i++) {
+                cache.remove(i);
+                nextUpdate(i);
+                updated = true;
             }
-            
-            data.add(instData);
+            if (newCurrent != current) {
+                for (int i : new int[] {current, newCurrent}) {
+                    if (i >= 0 && i < from) {
+                        cache.remove(i);
+                        nextUpdate(i);
+                        updated = true;
+                    }
+                }
+                current = newCurrent;
+            }
+            size = newSize;
+            if (newSize > oldSize) {
+                nextAdd(oldSize, newSize);
+            }
+            endChange();
+            return updated;
+        }
+
+        private void setWindow(FrameSnapshot frame) {
+            windowStart = frame.windowStart;
+            window = frame.window;
+        }
+
+        // Removed rows are reported without formatting them; listeners only use the count
+        private static List<InstructionData> stale(int count) {
+            return Collections.nCopies(count, STALE_ROW);
         }
     }
     
@@ -71,7 +308,9 @@ public class InstructionListTable {
         Label title = new Label("Instruction Queue");
         title.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
         VBox vbox = new VBox(5);
-        vbox.getChildren().addAll(title, tableView);
+        HBox controls = new HBox(5, followBox, new Separator(), jumpField, cycleButton, pcButton, infoLabel);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        vbox.getChildren().addAll(title, tableView, controls);
         return vbox;
     }
     
@@ -7,6 +7,8 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 
+import java.util.List;
+
 public class LoadStoreBufferTable {
     private TableView<LSBufferData> tableView;
     private ObservableList<LSBufferData> data;
@@ -35,10 +37,17 @@ public class LoadStoreBufferTable {
         tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
     }
     
-    public void update(LoadStoreBuffer buffer) {
-        data.clear();
-        
-        for (LoadStoreBuffer.LoadStoreEntry entry : buffer.getEntries()) {
+    /** Show the buffer entries of a frame snapshot. */
+    public void show(LSBufferData[] rows) {
+        data.setAll(rows);
+    }
+    
+    /** One row per buffer entry. The caller must hold the simulator's monitor. */
+    static LSBufferData[] snapshot(LoadStoreBuffer buffer) {
+        List<LoadStoreBuffer.LoadStoreEntry> entries = buffer.getEntries();
+        LSBufferData[] rows = new LSBufferData[entries.size()];
+        for (int i = 0; i < rows.length; i++) {
+            LoadStoreBuffer.LoadStoreEntry entry = entries.get(i);
             LSBufferData entryData = new LSBufferData();
             entryData.setStationName(entry.getStationName());
             entryData.setType(entry.getType().toString());
@@ -47,8 +56,9 @@ public class LoadStoreBufferTable {
                     String.format("%.2f", entry.getValue()) : "");
             entryData.setCyclesRemaining(String.valueOf(entry.getCyclesRemaining()));
             
-            data.add(entryData);
+            rows[i] = entryData;
         }
+        return rows;
     }
     
     public VBox getView() {
@@ -1,14 +1,14 @@
 package com.example.tomasulo.gui;
 
 import com.example.tomasulo.components.RegisterFile;
+import com.example.tomasulo.components.ReservationStationManager;
+import com.example.tomasulo.core.ChangeSet;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 
-import java.util.Map;
-
 public class RegisterFileTable {
     private TableView<RegisterData> tableView;
     private ObservableList<RegisterData> data;
@@ -31,28 +31,28 @@ public class RegisterFileTable {
         tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
     }
     
-    public void update(RegisterFile registerFile) {
-        data.clear();
-        
-        // Add integer registers in order R0-R31
-        for (int i = 0; i < 32; i++) {
-            String regName = "R" + i;
-            RegisterData regData = new RegisterData();
-            regData.setName(regName);
-            regData.setValue(String.format("%.2f", registerFile.getValue(regName)));
-            regData.setTag(registerFile.getTag(regName));
-            data.add(regData);
-        }
-        
-        // Add FP registers in order F0-F31
-        for (int i = 0; i < 32; i++) {
-            String regName = "F" + i;
-            RegisterData regData = new RegisterData();
-            regData.setName(regName);
-            regData.setValue(String.format("%.2f", registerFile.getValue(regName)));
-            regData.setTag(registerFile.getTag(regName));
-            data.add(regData);
-        }
+    /** Show the register rows of a frame snapshot. */
+    public void show(RegisterData[] rows) {
+        FrameSnapshot.show(data, rows);
+    }
+    
+    /**
+     * One row per register in register file index order (R0-R31 then F0-F31),
+     * reusing {@code previous} rows of registers not listed in {@code changes}.
+     * The caller must hold the simulator's monitor.
+     */
+    static RegisterData[] snapshot(RegisterFile registerFile, ReservationStationManager rsManager,
+                                   RegisterData[] previous, ChangeSet changes) {
+        return FrameSnapshot.patch(previous, RegisterFile.NUM_REGISTERS, changes.getRegisters(),
+                RegisterData[]::new, i -> buildRow(i, registerFile, rsManager));
+    }
+    
+    private static RegisterData buildRow(int i, RegisterFile registerFile, ReservationStationManager rsManager) {
+        RegisterData regData = new RegisterData();
+        regData.setName(RegisterFile.nameOf(i));
+        regData.setValue(String.format("%.2f", registerFile.getValue(i)));
+        regData.setTag(rsManager.getStationName(registerFile.getTag(i)));
+        return regData;
     }
     
     public VBox getView() {
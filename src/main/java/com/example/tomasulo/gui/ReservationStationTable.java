@@ -2,13 +2,13 @@ package com.example.tomasulo.gui;
 
 import com.example.tomasulo.components.ReservationStation;
 import com.example.tomasulo.components.ReservationStationManager;
+import com.example.tomasulo.core.ChangeSet;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class ReservationStationTable {
@@ -51,34 +51,47 @@ public class ReservationStationTable {
         tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
     }
     
-    public void update(ReservationStationManager rsManager) {
-        data.clear();
-        
-        for (ReservationStation rs : rsManager.getAllStations()) {
-            ReservationStationData rsData = new ReservationStationData();
-            rsData.setName(rs.getName());
-            boolean busy = rs.isBusy();
-            rsData.setBusy(busy ? "Yes" : "No");
-            if (busy) {
-                rsData.setOperation(rs.getOperation() != null ? rs.getOperation() : "");
-                rsData.setVj(rs.getVj() != null ? rs.getVj() : "");
-                rsData.setVk(rs.getVk() != null ? rs.getVk() : "");
-                rsData.setQj(rs.getQj() != null ? rs.getQj() : "");
-                rsData.setQk(rs.getQk() != null ? rs.getQk() : "");
-                rsData.setDestination(rs.getDestination() != null ? rs.getDestination() : "");
-                rsData.setCyclesRemaining(String.valueOf(rs.getCyclesRemaining()));
-            } else {
-                rsData.setOperation("");
-                rsData.setVj("");
-                rsData.setVk("");
-                rsData.setQj("");
-                rsData.setQk("");
-                rsData.setDestination("");
-                rsData.setCyclesRemaining("0");
-            }
-            
-            data.add(rsData);
+    /** Show the station rows of a frame snapshot. */
+    public void show(ReservationStationData[] rows) {
+        FrameSnapshot.show(data, rows);
+    }
+    
+    /**
+     * One row per station in id order, as returned by getAllStations(),
+     * reusing {@code previous} rows of stations not listed in {@code changes}.
+     * The caller must hold the simulator's monitor.
+     */
+    static ReservationStationData[] snapshot(ReservationStationManager rsManager,
+                                             ReservationStationData[] previous, ChangeSet changes) {
+        List<ReservationStation> stations = rsManager.getAllStations();
+        return FrameSnapshot.patch(previous, stations.size(), changes.getStations(),
+                ReservationStationData[]::new, id -> buildRow(stations.get(id), rsManager));
+    }
+    
+    private static ReservationStationData buildRow(ReservationStation rs, ReservationStationManager rsManager) {
+        ReservationStationData rsData = new ReservationStationData();
+        rsData.setName(rs.getName());
+        boolean busy = rs.isBusy();
+        rsData.setBusy(busy ? "Yes" : "No");
+        if (busy) {
+            rsData.setOperation(rs.getOperation() != null ? rs.getOperation() : "");
+            rsData.setVj(rs.formatVj());
+            rsData.setVk(rs.formatVk());
+            rsData.setQj(rsManager.getStationName(rs.getQj()));
+            rsData.setQk(rsManager.getStationName(rs.getQk()));
+            rsData.setDestination(rs.getDestination() != null ? rs.getDestination() : "");
+            rsData.setCyclesRemaining(String.valueOf(rs.getCyclesRemaining()));
+        } else {
+            rsData.setOperation("");
+            rsData.setVj("");
+            rsData.setVk("");
+            rsData.setQj("");
+            rsData.setQk("");
+            rsData.setDestination("");
+            rsData.setCyclesRemaining("0");
         }
+        
+        return rsData;
     }
     
     public VBox getView() {
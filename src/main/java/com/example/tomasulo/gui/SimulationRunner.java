@@ -0,0 +1,194 @@
+package com.example.tomasulo.gui;
+
+import com.example.tomasulo.core.TomasuloSimulator;
+import javafx.application.Platform;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs a simulator on a background thread and hands the FX thread a
+ * {@link FrameSnapshot} to draw at most once per frame.
+ *
+ * The simulation thread holds the simulator's monitor while it steps and
+ * captures each snapshot under it, so every snapshot shows the simulator
+ * between cycles. Snapshots are published through an AtomicReference and the
+ * FX thread draws only them, so drawing never waits for the monitor. If the FX
+ * thread has not drawn a snapshot by the time the next one is captured, the
+ * next one replaces it and also redraws what it would have.
+ *
+ * Speed is given in cycles per frame. {@link #UNTHROTTLED} runs with cycle
+ * skipping as fast as possible. Either way the simulation thread lets go of
+ * the monitor at least every {@link #SLICE_NANOS}, so {@link #stop()} and the
+ * few FX thread reads that still take the monitor wait at most that long.
+ */
+public class SimulationRunner {
+    public static final int UNTHROTTLED = 0;
+
+    // Longest the simulation thread holds the monitor at a time. A throttled frame
+    // whose cycles take longer is finished in further slices.
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    private final TomasuloSimulator simulator;
+    private final long frameNanos;
+    private final UnaryOperator<FrameSnapshot> capture;
+    private final Consumer<FrameSnapshot> onFrame;
+    private final Runnable onStopped;
+    private final AtomicReference<FrameSnapshot> pendingFrame = new AtomicReference<>();
+    private final AtomicBoolean drawQueued = new AtomicBoolean();
+
+    private volatile int cyclesPerFrame;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param frameRate frames per second
+     * @param capture snapshots the simulator, given the snapshot it replaces if
+     *                that one was never drawn (else null); called with the
+     *                simulator's monitor held
+     * @param onFrame draws a snapshot; run on the FX thread
+     * @param onStopped run on the FX thread after the last frame, once the run ends for any reason
+     */
+    public SimulationRunner(TomasuloSimulator simulator, int frameRate, int cyclesPerFrame,
+                            UnaryOperator<FrameSnapshot> capture, Consumer<FrameSnapshot> onFrame,
+                            Runnable onStopped) {
+        if (frameRate <= 0) {
+            throw new IllegalArgumentException("Frame rate must be positive: " + frameRate);
+        }
+        this.simulator = simulator;
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / frameRate;
+        this.cyclesPerFrame = cyclesPerFrame;
+        this.capture = capture;
+        this.onFrame = onFrame;
+        this.onStopped = onStopped;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Cycles simulated per frame, or {@link #UNTHROTTLED}. Takes effect on the next frame. */
+    public void setCyclesPerFrame(int cyclesPerFrame) {
+        this.cyclesPerFrame = cyclesPerFrame;
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::runLoop, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the run and wait for the simulation thread to let go of the
+     * simulator. When called on the FX thread, the final snapshot has been
+     * drawn when this returns; onStopped still runs later on the FX thread.
+     */
+    public void stop() {
+        running = false;
+        Thread t = thread;
+        if (t != null && t != Thread.currentThread()) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (Platform.isFxApplicationThread()) {
+            drawPendingFrame();
+        }
+    }
+
+    private void runLoop() {
+        long nextFrame = System.nanoTime();
+        long lastPost = 0;
+        int owed = 0; // cycles of the current throttled frame not run yet
+        try {
+            while (running) {
+                boolean done;
+                int budget = cyclesPerFrame;
+                synchronized (simulator) {
+                    long sliceEnd = System.nanoTime() + SLICE_NANOS;
+                    if (budget == UNTHROTTLED) {
+                        owed = 0;
+                        boolean progressing = true;
+                        while (progressing && !simulator.getState().isSimulationComplete()
+                                && System.nanoTime() < sliceEnd) {
+                            progressing = simulator.advanceToNextEvent();
+                        }
+                        // Stalled with nothing counting down: more cycles would change nothing
+                        done = !progressing || simulator.getState().isSimulationComplete();
+                    } else {
+                        if (owed == 0) {
+                            owed = budget;
+                        }
+                        while (owed > 0 && !simulator.getState().isSimulationComplete()
+                                && System.nanoTime() < sliceEnd) {
+                            simulator.step();
+                            owed--;
+                        }
+                        done = simulator.getState().isSimulationComplete();
+                    }
+                    long now = System.nanoTime();
+                    if (!done && now - lastPost >= frameNanos) {
+                        lastPost = now;
+                        publishFrame();
+                    }
+                }
+                if (done) {
+                    break;
+                }
+
+                if (budget != UNTHROTTLED && owed == 0) {
+                    nextFrame += frameNanos;
+                    long wait = nextFrame - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } else {
+                        nextFrame = System.nanoTime(); // fell behind; do not try to catch up
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            try {
+                synchronized (simulator) {
+                    publishFrame();
+                }
+            } finally {
+                Platform.runLater(() -> {
+                    drawPendingFrame();
+                    onStopped.run();
+                });
+            }
+        }
+    }
+
+    // Called with the monitor held. At most one snapshot waits for the FX thread;
+    // a newer one takes the place of one that was not drawn in time.
+    private void publishFrame() {
+        FrameSnapshot undrawn = pendingFrame.getAndSet(null);
+        pendingFrame.set(capture.apply(undrawn));
+        if (drawQueued.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                drawQueued.set(false);
+                drawPendingFrame();
+            });
+        }
+    }
+
+    private void drawPendingFrame() {
+        FrameSnapshot frame = pendingFrame.getAndSet(null);
+        if (frame != null) {
+            onFrame.accept(frame);
+        }
+    }
+}
@@ -15,10 +15,15 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 
 public class TomasuloGUI extends Application {
+    private static final int SPEED_STEPS = 6; // slider positions 0-5 are 10^n cycles per frame
+    
     private TomasuloSimulator simulator;
     private InstructionParser parser;
     
@@ -29,6 +34,8 @@ public class TomasuloGUI extends Application {
     private Button resetButton;
     private Label cycleLabel;
     private Label statusLabel;
+    private Slider speedSlider;
+    private Label speedLabel;
     private TextArea instructionInput;
     
     // Configuration Panel
@@ -37,6 +44,14 @@ public class TomasuloGUI extends Application {
     private TextField blockSizeField;
     private TextField hitLatencyField;
     private TextField missPenaltyField;
+    private TextField associativityField;
+    private ComboBox<ReplacementPolicy.Type> policyBox;
+    private TextField l2SizeField;
+    private TextField l2LatencyField;
+    private TextField l3SizeField;
+    private TextField l3LatencyField;
+    private ComboBox<Cache.Inclusion> inclusionBox;
+    private CheckBox alignedLinesBox;
     
     // Station Sizes
     private TextField fpAddSubSizeField;
@@ -44,6 +59,9 @@ public class TomasuloGUI extends Application {
     private TextField intAluSizeField;
     private TextField loadSizeField;
     private TextField storeSizeField;
+    private CheckBox forwardingBox;
+    private TextField forwardingLatencyField;
+    private CheckBox speculationBox;
     
     // Initial Registers
     private TextArea initialRegField;
@@ -64,12 +82,17 @@ public class TomasuloGUI extends Application {
     // Log
     private TextArea executionLog;
     
-    private boolean running = false;
+    // Background run; null or stopped when the simulator is idle
+    private SimulationRunner runner;
+    // Last snapshot captured of the simulator; guarded by the simulator's monitor
+    private FrameSnapshot lastFrame;
+    private final int frameRate = Integer.getInteger("tomasulo.frameRate", Constants.DEFAULT_FRAME_RATE);
     
     @Override
     public void start(Stage primaryStage) {
         try {
             simulator = new TomasuloSimulator();
+            configureTrace(simulator);
             parser = new InstructionParser();
             
             primaryStage.setTitle("Tomasulo Algorithm Simulator");
@@ -136,11 +159,28 @@ public class TomasuloGUI extends Application {
         resetButton = new Button("Reset");
         resetButton.setOnAction(e -> resetSimulation());
         
+        // Speed: 10^n cycles per frame, rightmost position unthrottled
+        speedSlider = new Slider(0, SPEED_STEPS, SPEED_STEPS);
+        speedSlider.setMajorTickUnit(1);
+        speedSlider.setMinorTickCount(0);
+        speedSlider.setSnapToTicks(true);
+        speedSlider.setShowTickMarks(true);
+        speedSlider.setPrefWidth(140);
+        speedLabel = new Label();
+        speedSlider.valueProperty().addListener((obs, oldValue, newValue) -> {
+            speedLabel.setText(speedText());
+            if (runner != null) {
+                runner.setCyclesPerFrame(cyclesPerFrame());
+            }
+        });
+        speedLabel.setText(speedText());
+        
         cycleLabel = new Label("Cycle: 0");
         statusLabel = new Label("Status: Ready");
         
         controlPanel.getChildren().addAll(
             loadFileButton, stepButton, runButton, resetButton,
+            new Separator(), new Label("Speed:"), speedSlider, speedLabel,
             new Separator(), cycleLabel, statusLabel
         );
         
@@ -224,12 +264,33 @@ public class TomasuloGUI extends Application {
         blockSizeField = new TextField(String.valueOf(Constants.DEFAULT_BLOCK_SIZE));
         hitLatencyField = new TextField(String.valueOf(Constants.DEFAULT_CACHE_HIT_LATENCY));
         missPenaltyField = new TextField(String.valueOf(Constants.DEFAULT_CACHE_MISS_PENALTY));
+        associativityField = new TextField(String.valueOf(Constants.DEFAULT_CACHE_ASSOCIATIVITY));
+        policyBox = new ComboBox<>();
+        policyBox.getItems().addAll(ReplacementPolicy.Type.values());
+        policyBox.setValue(ReplacementPolicy.Type.LRU);
+        l2SizeField = new TextField("0");
+        l2LatencyField = new TextField(String.valueOf(Constants.DEFAULT_L2_HIT_LATENCY));
+        l3SizeField = new TextField("0");
+        l3LatencyField = new TextField(String.valueOf(Constants.DEFAULT_L3_HIT_LATENCY));
+        inclusionBox = new ComboBox<>();
+        inclusionBox.getItems().addAll(Cache.Inclusion.values());
+        inclusionBox.setValue(Cache.Inclusion.INCLUSIVE);
+        alignedLinesBox = new CheckBox("Aligned lines (fill whole blocks)");
+        alignedLinesBox.setSelected(Constants.DEFAULT_ALIGNED_LINES);
         
         cacheConfig.getChildren().addAll(
             new Label("Cache Size (bytes):"), cacheSizeField,
             new Label("Block Size (bytes):"), blockSizeField,
             new Label("Hit Latency (cycles):"), hitLatencyField,
-            new Label("Miss Penalty (cycles):"), missPenaltyField
+            new Label("Miss Penalty (cycles):"), missPenaltyField,
+            new Label("Associativity (ways, 0 = fully):"), associativityField,
+            new Label("Replacement Policy:"), policyBox,
+            alignedLinesBox,
+            new Label("L2 Size (bytes, 0 = none):"), l2SizeField,
+            new Label("L2 Hit Latency (cycles):"), l2LatencyField,
+            new Label("L3 Size (bytes, 0 = none):"), l3SizeField,
+            new Label("L3 Hit Latency (cycles):"), l3LatencyField,
+            new Label("Lower Levels:"), inclusionBox
         );
         cachePane.setContent(cacheConfig);
         
@@ -244,13 +305,21 @@ public class TomasuloGUI extends Application {
         intAluSizeField = new TextField(String.valueOf(Constants.DEFAULT_INTEGER_ALU_STATIONS));
         loadSizeField = new TextField(String.valueOf(Constants.DEFAULT_LOAD_STATIONS));
         storeSizeField = new TextField(String.valueOf(Constants.DEFAULT_STORE_STATIONS));
+        forwardingBox = new CheckBox("Store-to-load forwarding");
+        forwardingBox.setSelected(Constants.DEFAULT_STORE_FORWARDING);
+        forwardingLatencyField = new TextField(String.valueOf(Constants.DEFAULT_FORWARDING_LATENCY));
+        speculationBox = new CheckBox("Speculative loads (replay on violation)");
+        speculationBox.setSelected(Constants.DEFAULT_SPECULATIVE_LOADS);
         
         stationConfig.getChildren().addAll(
             new Label("FP Add/Sub Stations:"), fpAddSubSizeField,
             new Label("FP Mul/Div Stations:"), fpMulDivSizeField,
             new Label("Integer ALU Stations:"), intAluSizeField,
             new Label("Load Buffers:"), loadSizeField,
-            new Label("Store Buffers:"), storeSizeField
+            new Label("Store Buffers:"), storeSizeField,
+            forwardingBox,
+            new Label("Forwarding Latency (cycles):"), forwardingLatencyField,
+            speculationBox
         );
         stationPane.setContent(stationConfig);
         
@@ -376,6 +445,7 @@ public class TomasuloGUI extends Application {
         
         File file = fileChooser.showOpenDialog(null);
         if (file != null) {
+            stopRun();
             try {
                 List<Instruction> instructions = parser.parseFile(file.getAbsolutePath());
                 simulator.loadInstructions(instructions);
@@ -400,6 +470,7 @@ public class TomasuloGUI extends Application {
             return;
         }
         
+        stopRun();
         try {
             List<Instruction> instructions = parser.parseText(text);
             simulator.loadInstructions(instructions);
@@ -414,6 +485,7 @@ public class TomasuloGUI extends Application {
     }
     
     private void stepSimulation() {
+        stopRun();
         if (simulator.getState().isSimulationComplete()) {
             statusLabel.setText("Status: Simulation complete");
             return;
@@ -428,34 +500,59 @@ public class TomasuloGUI extends Application {
     }
     
     private void toggleRun() {
-        if (running) {
-            running = false;
-            runButton.setText("Run");
+        if (runner != null && runner.isRunning()) {
+            stopRun();
         } else {
-            running = true;
-            runButton.setText("Stop");
-            runSimulation();
+            startRun();
         }
     }
     
-    private void runSimulation() {
-        new Thread(() -> {
-            while (running && !simulator.getState().isSimulationComplete()) {
-                Platform.runLater(() -> stepSimulation());
-                try {
-                    Thread.sleep(500); // 500ms delay between steps
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
-            Platform.runLater(() -> {
-                running = false;
-                runButton.setText("Run");
-            });
-        }).start();
+    private void startRun() {
+        if (simulator.getState().isSimulationComplete()) {
+            statusLabel.setText("Status: Simulation complete");
+            return;
+        }
+        runner = new SimulationRunner(simulator, frameRate, cyclesPerFrame(),
+                this::captureFrame, this::renderFrame, () -> {
+                    // A stale callback from an earlier run must not relabel a newer one
+                    if (runner == null || !runner.isRunning()) {
+                        runButton.setText("Run");
+                    }
+                });
+        runButton.setText("Stop");
+        runner.start();
+    }
+    
+    /** Stop a background run, if any, before touching the simulator from the FX thread. */
+    private void stopRun() {
+        if (runner != null) {
+            runner.stop();
+            runner = null;
+        }
+        runButton.setText("Run");
+    }
+    
+    private void renderFrame(FrameSnapshot frame) {
+        showFrame(frame);
+        cycleLabel.setText("Cycle: " + frame.cycle);
+        statusLabel.setText("Status: " + frame.status);
+    }
+    
+    private int cyclesPerFrame() {
+        int position = (int) Math.round(speedSlider.getValue());
+        return position >= SPEED_STEPS ? SimulationRunner.UNTHROTTLED : (int) Math.pow(10, position);
+    }
+    
+    private String speedText() {
+        int cycles = cyclesPerFrame();
+        if (cycles == SimulationRunner.UNTHROTTLED) {
+            return "Unthrottled";
+        }
+        return cycles + (cycles == 1 ? " cycle/frame" : " cycles/frame");
     }
     
     private void resetSimulation() {
+        stopRun();
         simulator.reset();
         // Re-apply registers after reset as simulator.reset() clears them
         applyInitialRegisters();
@@ -542,12 +639,18 @@ public class TomasuloGUI extends Application {
     }
 
     private void applyConfiguration() {
+        stopRun();
         try {
             // 1. Cache Settings
             int cacheSize = Integer.parseInt(cacheSizeField.getText());
             int blockSize = Integer.parseInt(blockSizeField.getText());
             int hitLatency = Integer.parseInt(hitLatencyField.getText());
             int missPenalty = Integer.parseInt(missPenaltyField.getText());
+            int associativity = Integer.parseInt(associativityField.getText());
+            int l2Size = Integer.parseInt(l2SizeField.getText());
+            int l2Latency = Integer.parseInt(l2LatencyField.getText());
+            int l3Size = Integer.parseInt(l3SizeField.getText());
+            int l3Latency = Integer.parseInt(l3LatencyField.getText());
             
             // 2. Station Sizes
             int fpAddSub = Integer.parseInt(fpAddSubSizeField.getText());
@@ -555,13 +658,30 @@ public class TomasuloGUI extends Application {
             int intAlu = Integer.parseInt(intAluSizeField.getText());
             int load = Integer.parseInt(loadSizeField.getText());
             int store = Integer.parseInt(storeSizeField.getText());
+            int forwardingLatency = Integer.parseInt(forwardingLatencyField.getText());
             
-            // Recreate simulator with new settings
-            simulator = new TomasuloSimulator(cacheSize, blockSize);
+            // Recreate simulator with new settings; an invalid cache geometry keeps the old one
+            TomasuloSimulator configured = new TomasuloSimulator(cacheSize, blockSize, associativity,
+                    policyBox.getValue());
+            // Lower levels share L1's block size and associativity
+            if (l2Size > 0) {
+                configured.addCacheLevel(l2Size, blockSize, associativity, l2Latency, inclusionBox.getValue());
+            }
+            if (l3Size > 0) {
+                configured.addCacheLevel(l3Size, blockSize, associativity, l3Latency, inclusionBox.getValue());
+            }
+            configured.getCache().setAlignedLines(alignedLinesBox.isSelected());
+            closeTrace(simulator);
+            simulator = configured;
+            lastFrame = null;
+            configureTrace(simulator);
             simulator.getCache().setHitLatency(hitLatency);
             simulator.getCache().setMissPenalty(missPenalty);
             
             simulator.initializeStations(fpAddSub, fpMulDiv, intAlu, load, store);
+            simulator.setStoreForwarding(forwardingBox.isSelected());
+            simulator.setForwardingLatency(forwardingLatency);
+            simulator.setSpeculativeLoads(speculationBox.isSelected());
             
             // 3. Latencies
             for (java.util.Map.Entry<String, TextField> entry : latencyFields.entrySet()) {
@@ -666,24 +786,62 @@ public class TomasuloGUI extends Application {
         alert.showAndWait();
     }
     
+    /**
+     * Keep only the newest trace entries in memory and spill the rest to a
+     * temporary file, so long runs do not grow the heap. Falls back to an
+     * in-memory trace if the file cannot be created.
+     */
+    private void configureTrace(TomasuloSimulator sim) {
+        try {
+            Path spillFile = Files.createTempFile("tomasulo-trace", ".bin");
+            spillFile.toFile().deleteOnExit();
+            sim.getState().getTrace().setSpillFile(spillFile);
+            sim.getState().getTrace().setRetention(Constants.GUI_TRACE_RETENTION);
+        } catch (IOException e) {
+            System.err.println("Trace spill file unavailable, keeping full trace in memory: " + e.getMessage());
+        }
+    }
+    
+    private void closeTrace(TomasuloSimulator sim) {
+        try {
+            sim.getState().getTrace().close();
+        } catch (IOException e) {
+            System.err.println("Error closing trace spill file: " + e.getMessage());
+        }
+    }
+    
+    // Called with the simulator's monitor held; on the simulation thread during a run
+    private FrameSnapshot captureFrame(FrameSnapshot undrawn) {
+        lastFrame = FrameSnapshot.capture(simulator, lastFrame, undrawn);
+        return lastFrame;
+    }
+    
+    // Callers stop the runner first, so no snapshot of a run is left undrawn
     private void updateDisplay() {
         if (simulator == null) return;
         
-        List<Instruction> displayInstructions = simulator.getState().getTrace();
-        // If trace is empty (initial state), show the static program
-        if (displayInstructions.isEmpty() && simulator.getState().getCurrentCycle() == 0) {
-            displayInstructions = simulator.getInstructions();
+        FrameSnapshot frame;
+        synchronized (simulator) {
+            frame = captureFrame(null);
+        }
+        showFrame(frame);
+    }
+    
+    // Draws only from the snapshot: a run may be changing the simulator meanwhile
+    private void showFrame(FrameSnapshot frame) {
+        // Tables patch only what changed since the last frame
+        instructionTable.show(frame);
+        rsTable.show(frame.stations);
+        registerTable.show(frame.registers);
+        cacheTable.show(frame.cacheBlocks, frame.cacheStats);
+        lsBufferTable.show(frame.loadStoreEntries);
+        
+        // Update Log: append new lines, rewrite only after a reset or a new simulator
+        if (frame.logReplaced) {
+            executionLog.setText(frame.logText);
+        } else if (!frame.logText.isEmpty()) {
+            executionLog.appendText(frame.logText);
         }
-        
-        instructionTable.update(displayInstructions, simulator.getState());
-        rsTable.update(simulator.getRsManager());
-        registerTable.update(simulator.getRegisterFile());
-        cacheTable.update(simulator.getCache());
-        lsBufferTable.update(simulator.getLoadStoreBuffer());
-        
-        // Update Log
-        List<String> log = simulator.getState().getExecutionLog();
-        executionLog.setText(String.join("\n", log));
         executionLog.setScrollTop(Double.MAX_VALUE); // Auto-scroll to bottom
     }
     
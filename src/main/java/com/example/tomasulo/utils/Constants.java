@@ -8,11 +8,20 @@ public class Constants {
     public static final int DEFAULT_LOAD_STATIONS = 2;
     public static final int DEFAULT_STORE_STATIONS = 2;
     public static final int DEFAULT_LOAD_STORE_BUFFER_SIZE = 4;
+    public static final boolean DEFAULT_STORE_FORWARDING = false; // loads wait for overlapping stores
+    public static final int DEFAULT_FORWARDING_LATENCY = 1; // cycles, replaces the cache latency of a forwarded load
+    public static final boolean DEFAULT_SPECULATIVE_LOADS = false; // loads wait for older stores with unknown addresses
+    public static final int DEFAULT_STORE_SET_TABLE_SIZE = 1024; // entries, a power of two
     
     public static final int DEFAULT_CACHE_SIZE = 1024; // bytes
     public static final int DEFAULT_BLOCK_SIZE = 8; // bytes
     public static final int DEFAULT_CACHE_HIT_LATENCY = 1; // cycles
     public static final int DEFAULT_CACHE_MISS_PENALTY = 10; // cycles
+    public static final int DEFAULT_CACHE_ASSOCIATIVITY = 1; // ways per set; 0 = fully associative
+    public static final long DEFAULT_CACHE_SEED = 42; // random replacement
+    public static final boolean DEFAULT_ALIGNED_LINES = false; // blocks start at the missing address
+    public static final int DEFAULT_L2_HIT_LATENCY = 4; // cycles, for an access served by L2
+    public static final int DEFAULT_L3_HIT_LATENCY = 7; // cycles, for an access served by L3
     
     public static final int NUM_INTEGER_REGISTERS = 32;
     public static final int NUM_FP_REGISTERS = 32;
@@ -20,6 +29,13 @@ public class Constants {
     
     // Memory Configuration
     public static final int MEMORY_SIZE = 65536; // 64KB memory
+    
+    // Simulation Limits
+    public static final int DEFAULT_MAX_CYCLES = 10_000_000; // runUntilComplete() budget
+    
+    // Trace Retention
+    public static final int GUI_TRACE_RETENTION = 1000; // in-memory trace entries; older ones spill to disk
+    public static final int DEFAULT_FRAME_RATE = 30; // GUI redraws per second while running
 }
 
 
@@ -0,0 +1,13 @@
+package com.example.tomasulo.utils;
+
+/**
+ * Why a cycle was lost. A cycle counts once per reason, so one cycle can be
+ * attributed to several reasons at the same time.
+ */
+public enum StallReason {
+    BRANCH,          // Issue blocked until the pending branch resolves
+    STRUCTURAL,      // No free reservation station for the next instruction
+    BRANCH_OPERANDS, // Branch waiting for its source registers before it can issue
+    ADDRESS_CLASH,   // Load/store held back, at issue or execute, by an earlier access to the same address
+    CDB              // A finished instruction lost the common data bus to another
+}
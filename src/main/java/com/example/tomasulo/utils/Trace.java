@@ -0,0 +1,20 @@
+package com.example.tomasulo.utils;
+
+/**
+ * Debug tracing for the parser and branch resolution, off by default.
+ *
+ * Enable with {@code -Dtomasulo.trace=true}. {@link #ENABLED} is read once at
+ * class initialization, so guarded call sites compile down to a constant check
+ * and disabled runs never build the trace strings.
+ */
+public final class Trace {
+    public static final boolean ENABLED = Boolean.getBoolean("tomasulo.trace");
+    
+    private Trace() {
+    }
+    
+    /** Print a trace line. Callers guard with {@code if (Trace.ENABLED)}. */
+    public static void println(String message) {
+        System.out.println(message);
+    }
+}
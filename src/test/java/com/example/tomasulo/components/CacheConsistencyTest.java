@@ -0,0 +1,91 @@
+package com.example.tomasulo.components;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Random loads and stores of 1 to 8 bytes go through a cache and into a flat
+ * reference array, and every load must return what the array holds. After a
+ * flush, main memory must equal the array. Covers every replacement policy
+ * with direct-mapped, set-associative and fully associative first levels,
+ * aligned and unaligned lines, alone and with inclusive and exclusive levels
+ * below.
+ */
+class CacheConsistencyTest {
+    private static final int OPERATIONS = 5_000;
+    private static final long SEED = 1L;
+    private static final int MEMORY_BYTES = 1024;
+    private static final int[] ASSOCIATIVITIES = {1, 2, 4, Cache.FULLY_ASSOCIATIVE};
+
+    @TestFactory
+    List<DynamicTest> matchesReferenceMemory() {
+        List<DynamicTest> tests = new ArrayList<>();
+        for (ReplacementPolicy.Type policy : ReplacementPolicy.Type.values()) {
+            for (int associativity : ASSOCIATIVITIES) {
+                for (boolean aligned : new boolean[] {false, true}) {
+                    for (int levels = 1; levels <= 3; levels++) {
+                        for (Cache.Inclusion inclusion : Cache.Inclusion.values()) {
+                            if (levels == 1 && inclusion == Cache.Inclusion.EXCLUSIVE) {
+                                continue; // Same as the inclusive run without a level below
+                            }
+                            int levelCount = levels;
+                            long seed = SEED + tests.size();
+                            String name = policy + " associativity=" + associativity + " aligned=" + aligned
+                                    + " levels=" + levels + " " + inclusion;
+                            tests.add(DynamicTest.dynamicTest(name, () -> check(
+                                    build(policy, associativity, aligned, levelCount, inclusion), new Random(seed))));
+                        }
+                    }
+                }
+            }
+        }
+        return tests;
+    }
+
+    // First level of 8 x 8-byte blocks; inclusive levels below use larger blocks, exclusive ones the same size
+    private static Cache build(ReplacementPolicy.Type policy, int associativity, boolean aligned, int levels,
+                               Cache.Inclusion inclusion) {
+        Cache first = new Cache(64, 8, associativity, policy, 1, 10);
+        Cache level = first;
+        for (int n = 2; n <= levels; n++) {
+            int blockSize = inclusion == Cache.Inclusion.EXCLUSIVE ? 8 : 8 << (n - 1);
+            Cache below = new Cache(64 << n, blockSize, 2, policy, n, 10);
+            level.setNextLevel(below, inclusion);
+            level = below;
+        }
+        first.setAlignedLines(aligned);
+        return first;
+    }
+
+    private static void check(Cache cache, Random random) {
+        byte[] reference = new byte[MEMORY_BYTES];
+        for (int op = 0; op < OPERATIONS; op++) {
+            int size = 1 << random.nextInt(4);
+            int address = random.nextInt(MEMORY_BYTES - size + 1);
+            if (random.nextBoolean()) {
+                long value = random.nextLong();
+                cache.storeLong(address, size, value);
+                for (int i = 0; i < size; i++) {
+                    reference[address + i] = (byte) (value >>> (8 * i));
+                }
+            } else {
+                long expected = 0L;
+                for (int i = 0; i < size; i++) {
+                    expected |= (long) (reference[address + i] & 0xFF) << (8 * i);
+                }
+                int at = op;
+                assertEquals(expected, cache.loadLong(address, size),
+                        () -> "operation " + at + ": load of " + size + " bytes at " + address);
+            }
+        }
+        cache.flush();
+        assertArrayEquals(reference, cache.readMemory(0, MEMORY_BYTES), "memory after flush");
+    }
+}